@@ -0,0 +1,20 @@
+package ru.practicum.shareit.bench;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Точка входа профиля jmh: обычные аргументы JMH плюс прогон для каждого числа потоков из -Djmh.threads
+public class BenchmarkLauncher {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        for (String threads : System.getProperty("jmh.threads", "1").split(",")) {
+            new Runner(new OptionsBuilder()
+                    .parent(cli)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .build())
+                    .run();
+        }
+    }
+}
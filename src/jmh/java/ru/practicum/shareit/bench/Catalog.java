@@ -0,0 +1,74 @@
+package ru.practicum.shareit.bench;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.InMemoryItemRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.InMemoryUserRepository;
+
+import java.util.Random;
+
+// Детерминированные тестовые данные для бенчмарков
+public final class Catalog {
+
+    public static final String FREQUENT_WORD = "дрель";
+    public static final String RARE_WORD = "гравёр";
+
+    private static final String[] WORDS = {
+            "дрель", "пила", "молоток", "лестница", "стремянка", "шуруповёрт", "перфоратор", "рубанок",
+            "ножовка", "отвёртка", "болгарка", "уровень", "рулетка", "палатка", "велосипед", "самокат",
+            "ударная", "аккумуляторный", "электрическая", "ручная", "садовая", "складная", "алюминиевая",
+            "прочный", "лёгкий", "новый", "компактный", "мощный", "бесшумный", "профессиональный"
+    };
+
+    private Catalog() {
+    }
+
+    public static int owners(int catalogSize) {
+        return Math.max(1, catalogSize / 20);
+    }
+
+    public static String email(long n) {
+        return "user" + n + "@example.com";
+    }
+
+    public static Item item(Random rnd, long ownerId) {
+        String name = word(rnd) + " " + word(rnd);
+        String description = word(rnd) + " " + word(rnd) + " " + word(rnd);
+        if (rnd.nextInt(1000) == 0) {
+            description = description + " " + RARE_WORD;
+        }
+        return Item.builder()
+                .name(name)
+                .description(description)
+                .available(rnd.nextInt(10) < 8)
+                .ownerId(ownerId)
+                .build();
+    }
+
+    public static InMemoryUserRepository users(int count) {
+        InMemoryUserRepository repo = new InMemoryUserRepository();
+        for (long i = 1; i <= count; i++) {
+            repo.save(User.builder().name("User " + i).email(email(i)).build());
+        }
+        return repo;
+    }
+
+    // вещи равномерно распределены между owners(size) владельцами с id 1..owners
+    public static InMemoryItemRepository items(int size, long seed) {
+        return fill(new InMemoryItemRepository(), size, seed);
+    }
+
+    public static <R extends ItemRepository> R fill(R repo, int size, long seed) {
+        Random rnd = new Random(seed);
+        int owners = owners(size);
+        for (int i = 0; i < size; i++) {
+            repo.save(item(rnd, 1 + rnd.nextInt(owners)));
+        }
+        return repo;
+    }
+
+    private static String word(Random rnd) {
+        return WORDS[rnd.nextInt(WORDS.length)];
+    }
+}
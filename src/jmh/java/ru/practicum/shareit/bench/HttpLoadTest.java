@@ -0,0 +1,151 @@
+package ru.practicum.shareit.bench;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочное сравнение режимов Tomcat: платформенные потоки (server.tomcat.threads.max) и виртуальные.
+// Приложение поднимается в этом же процессе дважды; UserRepository.findById задерживается на latencyMs,
+// изображая поход в БД, — именно на блокирующем вводе-выводе виртуальные потоки и дают выигрыш.
+// Запуск: mvn -Pjmh test-compile exec:exec -Dbench.main=ru.practicum.shareit.bench.HttpLoadTest
+//         -Djmh.args="concurrency=1000 seconds=20 latencyMs=20"
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            opts.put(kv[0], kv.length > 1 ? kv[1] : "");
+        }
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "1000"));
+        int seconds = Integer.parseInt(opts.getOrDefault("seconds", "20"));
+        long latencyMs = Long.parseLong(opts.getOrDefault("latencyMs", "20"));
+
+        List<String> report = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            report.add(run(virtual, concurrency, seconds, latencyMs));
+        }
+        System.out.printf("%nconcurrency=%d, seconds=%d, latencyMs=%d%n", concurrency, seconds, latencyMs);
+        report.forEach(System.out::println);
+    }
+
+    private static String run(boolean virtual, int concurrency, int seconds, long latencyMs) throws Exception {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ShareItApp.class, SlowStorage.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "logging.level.root=WARN",
+                        "bench.latency-ms=" + latencyMs)
+                .run();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            int port = ((ServletWebServerApplicationContext) ctx).getWebServer().getPort();
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            URI base = URI.create("http://localhost:" + port);
+            http.send(HttpRequest.newBuilder(base.resolve("/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Load\",\"email\":\"load@ex.com\"}"))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+
+            HttpRequest get = HttpRequest.newBuilder(base.resolve("/users/1")).build();
+            // первые секунды — прогрев, в статистику не идут
+            long warmupEnd = System.nanoTime() + Duration.ofSeconds(Math.max(1, seconds / 5)).toNanos();
+            long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+            AtomicLong errors = new AtomicLong();
+            Queue<long[]> perClient = new ConcurrentLinkedQueue<>();
+            for (int c = 0; c < concurrency; c++) {
+                clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int n = 0;
+                    while (true) {
+                        long start = System.nanoTime();
+                        if (start >= end) {
+                            break;
+                        }
+                        try {
+                            int status = http.send(get, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (start >= warmupEnd) {
+                            if (n == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, n * 2);
+                            }
+                            latencies[n++] = System.nanoTime() - start;
+                        }
+                    }
+                    perClient.add(Arrays.copyOf(latencies, n));
+                    return null;
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(seconds * 3L + 60, TimeUnit.SECONDS);
+
+            long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            if (all.length == 0) {
+                return String.format("%-8s no successful requests, errors=%d", mode(virtual), errors.get());
+            }
+            return String.format("%-8s requests=%d, throughput=%.0f req/s, p50=%.1f ms, p99=%.1f ms, errors=%d",
+                    mode(virtual), all.length, all.length / (double) seconds,
+                    all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6, errors.get());
+        }
+    }
+
+    private static String mode(boolean virtual) {
+        return virtual ? "virtual" : "platform";
+    }
+
+    // задержка findById, имитирующая сетевой запрос к БД
+    @Configuration
+    static class SlowStorage {
+
+        @Bean
+        static BeanPostProcessor slowUserRepository(Environment env) {
+            long latencyMs = env.getProperty("bench.latency-ms", Long.class, 0L);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String name) {
+                    if (!(bean instanceof UserRepository users) || latencyMs == 0) {
+                        return bean;
+                    }
+                    return Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                            new Class<?>[]{UserRepository.class},
+                            (proxy, method, methodArgs) -> {
+                                if (method.getName().equals("findById")) {
+                                    Thread.sleep(latencyMs);
+                                }
+                                try {
+                                    return method.invoke(users, methodArgs);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            });
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.bench;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemJsonSerializer;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserJsonSerializer;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    // страница списка, как в GET /items/search
+    private static final int PAGE = 20;
+
+    // тот же набор сериализаторов, что Spring Boot регистрирует через @JsonComponent
+    private final ObjectMapper json = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(Item.class, new ItemJsonSerializer())
+            .addSerializer(User.class, new UserJsonSerializer()))
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    Item item;
+    User user;
+    List<Item> page;
+
+    @Setup
+    public void setUp() {
+        item = Catalog.item(new Random(42), 7L).toBuilder().id(1L).build();
+        user = User.builder().id(7L).name("User 7").email(Catalog.email(7)).build();
+        Random rnd = new Random(42);
+        page = new ArrayList<>(PAGE);
+        for (long id = 1; id <= PAGE; id++) {
+            page.add(Catalog.item(rnd, 7L).toBuilder().id(id).build());
+        }
+    }
+
+    @Benchmark
+    public ItemDto itemToDto() {
+        return ItemMapper.toDto(item);
+    }
+
+    @Benchmark
+    public UserDto userToDto() {
+        return UserMapper.toDto(user);
+    }
+
+    // прежний путь ответа: Item -> ItemDto через builder -> сериализация DTO рефлексией
+    @Benchmark
+    public void itemPageViaDto() throws IOException {
+        json.writeValue(sink, page.stream().map(ItemMapper::toDto).toList());
+    }
+
+    // Item пишется в генератор напрямую
+    @Benchmark
+    public void itemPageDirect() throws IOException {
+        json.writeValue(sink, page);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.ConflictException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Одна вещь с bookingCount часовыми бронями подряд: проверка пересечения и выборка будущих и текущих броней
+// не должны зависеть от их числа
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class InMemoryBookingRepositoryBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Param({"1000", "100000", "1000000"})
+    int bookingCount;
+
+    InMemoryBookingRepository repo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repo = new InMemoryBookingRepository();
+        for (int i = 0; i < bookingCount; i++) {
+            repo.save(booking(BASE.plusHours(i), BASE.plusHours(i + 1)));
+        }
+    }
+
+    @Benchmark
+    public Booking saveOverlapping() {
+        LocalDateTime start = BASE.plusHours(ThreadLocalRandom.current().nextInt(bookingCount)).plusMinutes(30);
+        try {
+            return repo.save(booking(start, start.plusHours(1)));
+        } catch (ConflictException e) {
+            return null;
+        }
+    }
+
+    // «сейчас» в последних 20 бронях: FUTURE берёт хвост индекса, а не фильтрует все брони
+    @Benchmark
+    public List<Booking> findFutureByBooker() {
+        return repo.findByBookerId(1L, BookingState.FUTURE, BASE.plusHours(bookingCount - 20));
+    }
+
+    // «сейчас» в середине истории: CURRENT смотрит только брони, начавшиеся не раньше самой длинной до now
+    @Benchmark
+    public List<Booking> findCurrentByBooker() {
+        return repo.findByBookerId(1L, BookingState.CURRENT, BASE.plusHours(bookingCount / 2).plusMinutes(30));
+    }
+
+    private static Booking booking(LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .start(start)
+                .end(end)
+                .itemId(1L)
+                .bookerId(1L)
+                .ownerId(2L)
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.bench.Catalog;
+import ru.practicum.shareit.booking.storage.InMemoryBookingRepository;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.SearchCacheProperties;
+import ru.practicum.shareit.item.search.SearchResultCache;
+import ru.practicum.shareit.item.storage.InMemoryCommentRepository;
+import ru.practicum.shareit.item.storage.InMemoryItemRepository;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.request.storage.InMemoryItemRequestRepository;
+import ru.practicum.shareit.user.storage.InMemoryUserRepository;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Полные сценарии сервиса поверх in-memory репозиториев, без Spring-контекста
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ItemServiceBenchmark {
+
+    private static final PageParams FIRST_PAGE = PageParams.of(null, 0, 20);
+    private static final int BATCH = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    int catalogSize;
+
+    // объём кеша поиска в id; 0 — без кеша, каждый поиск ранжируется заново
+    @Param({"1000000", "0"})
+    long cacheIds;
+
+    InMemoryItemRepository items;
+    ItemServiceImpl service;
+    int owners;
+    List<ItemDto> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        owners = Catalog.owners(catalogSize);
+        items = Catalog.items(catalogSize, 42);
+        InMemoryUserRepository users = Catalog.users(owners);
+        InMemoryBookingRepository bookings = new InMemoryBookingRepository();
+        InMemoryCommentRepository comments = new InMemoryCommentRepository();
+        service = new ItemServiceImpl(items, users, new InMemoryItemRequestRepository(), bookings, comments,
+                new ItemEnricher(bookings, comments, Clock.systemDefaultZone()),
+                new ShareItMetrics(new SimpleMeterRegistry()),
+                Clock.systemDefaultZone(),
+                Optional.of(new ItemSearchIndex(items, new SearchResultCache(new SearchCacheProperties(100, cacheIds),
+                        new SimpleMeterRegistry()))));
+        batch = Collections.nCopies(BATCH, new ItemDto(null, "Дрель", "ударная", true, null, null));
+    }
+
+    @Benchmark
+    public Item create() {
+        long ownerId = 1 + ThreadLocalRandom.current().nextInt(owners);
+        return service.create(ownerId, new ItemDto(null, "Дрель", "ударная", true, null, null));
+    }
+
+    // пакет из BATCH вещей одним вызовом; сравнивать с create() в пересчёте на одну вещь
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchResult<Item>> createBatch() {
+        long ownerId = 1 + ThreadLocalRandom.current().nextInt(owners);
+        return service.createBatch(ownerId, batch);
+    }
+
+    @Benchmark
+    public Item update() {
+        long itemId = 1 + ThreadLocalRandom.current().nextInt(catalogSize);
+        Item item = items.findById(itemId).orElseThrow();
+        ItemDto patch = new ItemDto(null, null, "обновлённое описание " + itemId, null, null, null);
+        try {
+            return service.update(item.getOwnerId(), itemId, patch);
+        } catch (VersionConflictException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public List<Item> searchFirstPage() {
+        return service.search(Catalog.FREQUENT_WORD, FIRST_PAGE);
+    }
+
+    // поиск подстроки хранилищем по возрастанию id — так ищут jdbc и offheap, где ранжированного индекса нет
+    @Benchmark
+    public List<Item> searchFirstPageById() {
+        return items.searchAvailableByText(Catalog.FREQUENT_WORD, FIRST_PAGE);
+    }
+}
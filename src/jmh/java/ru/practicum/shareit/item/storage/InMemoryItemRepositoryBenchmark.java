@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item.storage;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.bench.Catalog;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class InMemoryItemRepositoryBenchmark {
+
+    private static final PageParams FIRST_PAGE = PageParams.of(null, 0, 20);
+
+    @Param({"1000", "100000", "1000000"})
+    int catalogSize;
+
+    // offheap — OffHeapItemRepository: поиск просмотром записей вместо триграммного индекса
+    @Param({"heap", "offheap"})
+    String store;
+
+    ItemRepository repo;
+    int owners;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repo = "offheap".equals(store)
+                ? Catalog.fill(new OffHeapItemRepository(), catalogSize, 42)
+                : Catalog.items(catalogSize, 42);
+        owners = Catalog.owners(catalogSize);
+    }
+
+    @Benchmark
+    public List<Item> searchFrequentWord() {
+        return repo.searchAvailableByText(Catalog.FREQUENT_WORD, PageParams.ALL);
+    }
+
+    @Benchmark
+    public List<Item> searchFrequentWordFirstPage() {
+        return repo.searchAvailableByText(Catalog.FREQUENT_WORD, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public List<Item> searchRareWord() {
+        return repo.searchAvailableByText(Catalog.RARE_WORD, PageParams.ALL);
+    }
+
+    @Benchmark
+    public List<Item> searchShortQuery() {
+        return repo.searchAvailableByText("ая", FIRST_PAGE);
+    }
+
+    @Benchmark
+    public List<Item> findByOwnerId() {
+        long ownerId = 1 + ThreadLocalRandom.current().nextInt(owners);
+        return repo.findByOwnerId(ownerId, PageParams.ALL);
+    }
+}
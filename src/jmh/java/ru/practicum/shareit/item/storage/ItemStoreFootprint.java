@@ -0,0 +1,83 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.bench.Catalog;
+import ru.practicum.shareit.journal.Journal;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Память на вещь в куче и вне её для InMemoryItemRepository (объекты, индексы и триграммный индекс поиска)
+// и OffHeapItemRepository (записи и индекс id), плюс длительность полной сборки мусора
+// с заполненным хранилищем — её и сокращает хранение вне кучи.
+// Хранилища заполняются по очереди в одном процессе, замеры — после System.gc().
+// Запуск: mvn -Pjmh test-compile exec:exec -Dbench.main=ru.practicum.shareit.item.storage.ItemStoreFootprint
+//         -Djmh.args="items=200000"
+// InMemoryItemRepository занимает порядка 4 КБ на вещь, поэтому для миллионов вещей нужна большая куча
+public class ItemStoreFootprint {
+
+    public static void main(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            opts.put(kv[0], kv.length > 1 ? kv[1] : "");
+        }
+        int items = Integer.parseInt(opts.getOrDefault("items", "200000"));
+
+        // прогрев: загрузка классов и JIT не должны попасть в замер первого хранилища
+        Catalog.fill(new InMemoryItemRepository(), 10_000, 1);
+        Catalog.fill(new OffHeapItemRepository(Journal.NONE, 1 << 16), 10_000, 1);
+
+        System.out.printf("%-8s %10s %12s %12s %10s %12s%n",
+                "store", "items", "heap, MB", "direct, MB", "B/item", "full GC, ms");
+        measure("heap", items, InMemoryItemRepository::new);
+        measure("offheap", items, OffHeapItemRepository::new);
+    }
+
+    // куча с хранилищем минус куча после его освобождения: остатки предыдущих замеров в разность не попадают
+    private static void measure(String name, int items, Supplier<ItemRepository> store) {
+        heapAfterGc();
+        long directBefore = direct();
+        ItemRepository repo = Catalog.fill(store.get(), items, 42);
+        long withStore = heapAfterGc();
+        long direct = direct() - directBefore;
+        long gcMs = fullGcMillis();
+        long count = repo.count();
+        Reference.reachabilityFence(repo);
+        repo = null;
+        long heap = withStore - heapAfterGc();
+
+        System.out.printf("%-8s %10d %12.1f %12.1f %10d %12d%n", name, count,
+                heap / 1048576.0, direct / 1048576.0, (heap + direct) / items, gcMs);
+    }
+
+    private static long heapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long direct() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static long fullGcMillis() {
+        long before = gcTime();
+        System.gc();
+        return gcTime() - before;
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+}
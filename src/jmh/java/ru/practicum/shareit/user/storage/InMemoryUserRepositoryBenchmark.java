@@ -0,0 +1,37 @@
+package ru.practicum.shareit.user.storage;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.bench.Catalog;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class InMemoryUserRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int userCount;
+
+    InMemoryUserRepository repo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repo = Catalog.users(userCount);
+    }
+
+    @Benchmark
+    public boolean existsByEmailHit() {
+        long n = 1 + ThreadLocalRandom.current().nextInt(userCount);
+        return repo.existsByEmail(Catalog.email(n).toUpperCase(), null);
+    }
+
+    @Benchmark
+    public boolean existsByEmailMiss() {
+        return repo.existsByEmail("nobody@example.com", null);
+    }
+}
@@ -1,12 +1,58 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.service.BookingService;
 
-/**
- * TODO Sprint add-bookings.
- */
+import java.util.List;
+
+@Slf4j
 @RestController
 @RequestMapping(path = "/bookings")
+@RequiredArgsConstructor
 public class BookingController {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final BookingService service;
+
+    @PostMapping
+    public BookingDto create(@RequestHeader(USER_HEADER) Long bookerId,
+                             @RequestBody BookingCreateDto dto) {
+        log.debug("POST /bookings bookerId={}, itemId={}", bookerId, dto.getItemId());
+        return service.create(bookerId, dto);
+    }
+
+    @PatchMapping("/{bookingId}")
+    public BookingDto approve(@RequestHeader(USER_HEADER) Long ownerId,
+                              @PathVariable Long bookingId,
+                              @RequestParam boolean approved) {
+        log.debug("PATCH /bookings/{} ownerId={}, approved={}", bookingId, ownerId, approved);
+        return service.approve(ownerId, bookingId, approved);
+    }
+
+    @GetMapping("/{bookingId}")
+    public BookingDto getById(@RequestHeader(USER_HEADER) Long userId,
+                              @PathVariable Long bookingId) {
+        log.debug("GET /bookings/{} userId={}", bookingId, userId);
+        return service.getById(userId, bookingId);
+    }
+
+    @GetMapping
+    public List<BookingDto> getByBooker(@RequestHeader(USER_HEADER) Long bookerId,
+                                        @RequestParam(defaultValue = "ALL") String state) {
+        log.debug("GET /bookings bookerId={}, state={}", bookerId, state);
+        return service.getByBooker(bookerId, BookingState.parse(state));
+    }
+
+    @GetMapping("/owner")
+    public List<BookingDto> getByOwner(@RequestHeader(USER_HEADER) Long ownerId,
+                                       @RequestParam(defaultValue = "ALL") String state) {
+        log.debug("GET /bookings/owner ownerId={}, state={}", ownerId, state);
+        return service.getByOwner(ownerId, BookingState.parse(state));
+    }
 }
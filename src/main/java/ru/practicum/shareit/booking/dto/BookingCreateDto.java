@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Тело POST /bookings
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingCreateDto {
+    private Long itemId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+public class BookingMapper {
+
+    public static BookingShortDto toShortDto(Booking b) {
+        if (b == null) {
+            return null;
+        }
+        return BookingShortDto.builder()
+                .id(b.getId())
+                .bookerId(b.getBookerId())
+                .start(b.getStart())
+                .end(b.getEnd())
+                .build();
+    }
+
+    public static BookingDto toDto(Booking b, ItemDto item, UserDto booker) {
+        if (b == null) {
+            return null;
+        }
+        return BookingDto.builder()
+                .id(b.getId())
+                .start(b.getStart())
+                .end(b.getEnd())
+                .status(b.getStatus())
+                .item(item)
+                .booker(booker)
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Бронь в карточке вещи (lastBooking/nextBooking): без вложенных вещи и пользователя
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingShortDto {
+    private Long id;
+    private Long bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Неизменяемый снимок бронирования, как и Item: смена статуса создаёт новый объект с версией +1.
+// Интервал полуоткрытый [start, end): бронь, начинающаяся ровно в end предыдущей, с ней не пересекается
+@Value
+@Builder(toBuilder = true)
+public class Booking {
+    Long id;
+    LocalDateTime start;
+    LocalDateTime end;
+    Long itemId;
+    Long bookerId;
+
+    // владелец вещи на момент бронирования — для выборки GET /bookings/owner без обхода всех его вещей
+    Long ownerId;
+
+    @With
+    BookingStatus status;
+
+    @With
+    long version;
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.booking.model;
+
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.time.LocalDateTime;
+
+// Фильтр списков бронирований (параметр state)
+public enum BookingState {
+    ALL,
+    CURRENT,
+    PAST,
+    FUTURE,
+    WAITING,
+    REJECTED;
+
+    public static BookingState parse(String value) {
+        try {
+            return value == null ? ALL : valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестное состояние: " + value);
+        }
+    }
+
+    public boolean matches(Booking booking, LocalDateTime now) {
+        return switch (this) {
+            case ALL -> true;
+            case CURRENT -> !booking.getStart().isAfter(now) && booking.getEnd().isAfter(now);
+            case PAST -> !booking.getEnd().isAfter(now);
+            case FUTURE -> booking.getStart().isAfter(now);
+            case WAITING -> booking.getStatus() == BookingStatus.WAITING;
+            case REJECTED -> booking.getStatus() == BookingStatus.REJECTED;
+        };
+    }
+}
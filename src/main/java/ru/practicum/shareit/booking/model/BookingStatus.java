@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.model;
+
+public enum BookingStatus {
+    WAITING,
+    APPROVED,
+    REJECTED,
+    CANCELED;
+
+    // ожидающие и подтверждённые брони занимают вещь; отклонённые и отменённые — нет
+    public boolean occupiesItem() {
+        return this == WAITING || this == APPROVED;
+    }
+}
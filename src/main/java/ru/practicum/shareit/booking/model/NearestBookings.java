@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Value;
+
+// Подтверждённые брони вещи вокруг момента now: last — последняя начавшаяся, next — ближайшая будущая
+@Value
+public class NearestBookings {
+    Booking last;
+    Booking next;
+}
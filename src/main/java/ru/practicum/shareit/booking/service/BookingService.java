@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.util.List;
+
+public interface BookingService {
+
+    BookingDto create(Long bookerId, BookingCreateDto dto);
+
+    // подтверждает или отклоняет владелец вещи, только пока бронь в статусе WAITING
+    BookingDto approve(Long ownerId, Long bookingId, boolean approved);
+
+    // видят только автор брони и владелец вещи
+    BookingDto getById(Long userId, Long bookingId);
+
+    List<BookingDto> getByBooker(Long bookerId, BookingState state);
+
+    List<BookingDto> getByOwner(Long ownerId, BookingState state);
+}
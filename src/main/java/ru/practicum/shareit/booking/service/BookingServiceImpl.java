@@ -0,0 +1,156 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Timed(value = "shareit.service", extraTags = {"area", "bookings"}, percentiles = {0.5, 0.99}, histogram = true)
+public class BookingServiceImpl implements BookingService {
+
+    private final BookingRepository repo;
+    private final ItemRepository itemRepo;
+    private final UserRepository userRepo;
+    private final Clock clock;
+
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    @Override
+    public BookingDto create(Long bookerId, BookingCreateDto dto) {
+        requireUser(bookerId);
+        validateForCreate(dto);
+
+        Item item = itemRepo.findById(dto.getItemId())
+                .orElseThrow(() -> new NotFoundException("Вещь не найдена: " + dto.getItemId()));
+        if (item.getOwnerId().equals(bookerId)) {
+            throw new NotFoundException("Владелец не может бронировать свою вещь");
+        }
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            throw new ValidationException("Вещь недоступна для бронирования: " + item.getId());
+        }
+
+        Booking saved = repo.save(Booking.builder()
+                .start(dto.getStart())
+                .end(dto.getEnd())
+                .itemId(item.getId())
+                .bookerId(bookerId)
+                .ownerId(item.getOwnerId())
+                .status(BookingStatus.WAITING)
+                .build());
+        return toDto(saved);
+    }
+
+    @Override
+    public BookingDto approve(Long ownerId, Long bookingId, boolean approved) {
+        for (int attempt = 1; ; attempt++) {
+            Booking existing = repo.findById(bookingId)
+                    .orElseThrow(() -> new NotFoundException("Бронирование не найдено: " + bookingId));
+            if (!existing.getOwnerId().equals(ownerId)) {
+                throw new NotFoundException("Подтвердить бронирование может только владелец вещи");
+            }
+            if (existing.getStatus() != BookingStatus.WAITING) {
+                throw new ValidationException("Бронирование уже рассмотрено: " + bookingId);
+            }
+
+            try {
+                return toDto(repo.update(existing.withStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED)));
+            } catch (VersionConflictException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public BookingDto getById(Long userId, Long bookingId) {
+        Booking booking = repo.findById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Бронирование не найдено: " + bookingId));
+        if (!booking.getBookerId().equals(userId) && !booking.getOwnerId().equals(userId)) {
+            throw new NotFoundException("Бронирование не найдено: " + bookingId);
+        }
+        return toDto(booking);
+    }
+
+    @Override
+    public List<BookingDto> getByBooker(Long bookerId, BookingState state) {
+        requireUser(bookerId);
+        return toDtos(repo.findByBookerId(bookerId, state, LocalDateTime.now(clock)));
+    }
+
+    @Override
+    public List<BookingDto> getByOwner(Long ownerId, BookingState state) {
+        requireUser(ownerId);
+        return toDtos(repo.findByOwnerId(ownerId, state, LocalDateTime.now(clock)));
+    }
+
+    private BookingDto toDto(Booking booking) {
+        return BookingMapper.toDto(booking,
+                itemRepo.findById(booking.getItemId()).map(ItemMapper::toDto).orElse(null),
+                userRepo.findById(booking.getBookerId()).map(UserMapper::toDto).orElse(null));
+    }
+
+    // вещи и арендаторы всего списка загружаются двумя обращениями, а не по паре запросов на каждую бронь
+    private List<BookingDto> toDtos(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ItemDto> items = new HashMap<>();
+        itemRepo.findAllById(bookings.stream().map(Booking::getItemId).collect(Collectors.toSet()))
+                .forEach((id, item) -> items.put(id, ItemMapper.toDto(item)));
+        Map<Long, UserDto> bookers = new HashMap<>();
+        userRepo.findAllById(bookings.stream().map(Booking::getBookerId).collect(Collectors.toSet()))
+                .forEach((id, user) -> bookers.put(id, UserMapper.toDto(user)));
+        return bookings.stream()
+                .map(b -> BookingMapper.toDto(b, items.get(b.getItemId()), bookers.get(b.getBookerId())))
+                .collect(Collectors.toList());
+    }
+
+    private void requireUser(Long userId) {
+        userRepo.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + userId));
+    }
+
+    private void validateForCreate(BookingCreateDto dto) {
+        if (dto == null) {
+            throw new ValidationException("Тело запроса не должно быть пустым");
+        }
+        if (dto.getItemId() == null) {
+            throw new ValidationException("Вещь (itemId) должна быть указана");
+        }
+        if (dto.getStart() == null || dto.getEnd() == null) {
+            throw new ValidationException("Начало и конец бронирования должны быть указаны");
+        }
+        if (!dto.getStart().isBefore(dto.getEnd())) {
+            throw new ValidationException("Начало бронирования должно быть раньше конца");
+        }
+        if (dto.getStart().isBefore(LocalDateTime.now(clock))) {
+            throw new ValidationException("Начало бронирования не может быть в прошлом");
+        }
+    }
+}
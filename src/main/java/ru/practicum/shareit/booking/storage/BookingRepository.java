@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.NearestBookings;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public interface BookingRepository {
+
+    // проверка пересечения с ожидающими и подтверждёнными бронями вещи и вставка атомарны;
+    // при пересечении — ConflictException
+    Booking save(Booking booking);
+
+    // compare-and-set по версии, как у вещей; меняется только статус
+    Booking update(Booking booking);
+
+    Optional<Booking> findById(Long id);
+
+    // ближайшие подтверждённые брони для страницы вещей за один вызов; вещи без таких броней в ответ не попадают
+    Map<Long, NearestBookings> findNearestApproved(Collection<Long> itemIds, LocalDateTime now);
+
+    // по убыванию start
+    List<Booking> findByBookerId(Long bookerId, BookingState state, LocalDateTime now);
+
+    List<Booking> findByOwnerId(Long ownerId, BookingState state, LocalDateTime now);
+
+    // все арендаторы и владельцы, у которых есть брони
+    Set<Long> findUserIds();
+}
@@ -0,0 +1,211 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.NearestBookings;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+import ru.practicum.shareit.journal.Recoverable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Брони в памяти. Изменения брони одной вещи идут под её блокировкой: проверка пересечения, запись в журнал
+// и публикация — одним шагом, поэтому подтверждённая fsync бронь не может пересечься с опубликованной раньше
+@Repository
+public class InMemoryBookingRepository implements BookingRepository, Recoverable<Booking> {
+
+    // порядок в индексах букера и владельца: по start, при равенстве — по id
+    private static final Comparator<Key> ORDER = Comparator.comparing(Key::start).thenComparingLong(Key::id);
+
+    private final Map<Long, Booking> storage = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong(0);
+
+    private final Map<Long, ItemBookings> byItem = new ConcurrentHashMap<>();
+    private final Map<Long, UserBookings> byBooker = new ConcurrentHashMap<>();
+    private final Map<Long, UserBookings> byOwner = new ConcurrentHashMap<>();
+
+    // изменения пишутся в журнал, если он включён (shareit.journal.enabled)
+    private final Journal journal;
+
+    public InMemoryBookingRepository() {
+        this(Journal.NONE);
+    }
+
+    @Autowired
+    public InMemoryBookingRepository(ObjectProvider<Journal> journal) {
+        this(journal.getIfAvailable(() -> Journal.NONE));
+    }
+
+    public InMemoryBookingRepository(Journal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public Booking save(Booking booking) {
+        ItemBookings item = byItem.computeIfAbsent(booking.getItemId(), k -> new ItemBookings());
+        item.lock.lock();
+        try {
+            return journal.write(() -> {
+                if (booking.getStatus().occupiesItem() && item.overlaps(booking.getStart(), booking.getEnd())) {
+                    throw new ConflictException("Вещь уже забронирована на это время: " + booking.getItemId());
+                }
+                return booking.toBuilder().id(seq.incrementAndGet()).version(1).build();
+            }, stored -> List.of(new JournalRecord.BookingPut(stored)), this::put);
+        } finally {
+            item.lock.unlock();
+        }
+    }
+
+    @Override
+    public Booking update(Booking booking) {
+        Long id = booking.getId();
+        ItemBookings item = byItem.get(booking.getItemId());
+        if (item == null) {
+            throw new NotFoundException("Бронирование не найдено: " + id);
+        }
+        item.lock.lock();
+        try {
+            return journal.write(() -> {
+                Booking old = storage.get(id);
+                if (old == null) {
+                    throw new NotFoundException("Бронирование не найдено: " + id);
+                }
+                if (old.getVersion() != booking.getVersion()) {
+                    throw new VersionConflictException("Бронирование было изменено параллельно: " + id);
+                }
+                return booking.withVersion(old.getVersion() + 1);
+            }, stored -> List.of(new JournalRecord.BookingPut(stored)), this::put);
+        } finally {
+            item.lock.unlock();
+        }
+    }
+
+    // публикация новой версии брони; вызывается под блокировкой вещи или при восстановлении, до приёма запросов
+    private void put(Booking stored) {
+        Booking old = storage.put(stored.getId(), stored);
+        if (old == null) {
+            link(byBooker, stored.getBookerId(), stored);
+            link(byOwner, stored.getOwnerId(), stored);
+        }
+        ItemBookings item = byItem.computeIfAbsent(stored.getItemId(), k -> new ItemBookings());
+        if (old != null && old.getStatus().occupiesItem()) {
+            item.remove(old);
+        }
+        if (stored.getStatus().occupiesItem()) {
+            item.put(stored);
+        }
+    }
+
+    @Override
+    public Optional<Booking> findById(Long id) {
+        return Optional.ofNullable(storage.get(id));
+    }
+
+    @Override
+    public Map<Long, NearestBookings> findNearestApproved(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, NearestBookings> result = new HashMap<>();
+        for (Long itemId : itemIds) {
+            ItemBookings item = byItem.get(itemId);
+            NearestBookings nearest = item != null ? item.nearest(now) : null;
+            if (nearest != null) {
+                result.put(itemId, nearest);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Booking> findByBookerId(Long bookerId, BookingState state, LocalDateTime now) {
+        return find(byBooker.get(bookerId), state, now);
+    }
+
+    @Override
+    public List<Booking> findByOwnerId(Long ownerId, BookingState state, LocalDateTime now) {
+        return find(byOwner.get(ownerId), state, now);
+    }
+
+    @Override
+    public Set<Long> findUserIds() {
+        Set<Long> ids = new HashSet<>(byBooker.keySet());
+        ids.addAll(byOwner.keySet());
+        return ids;
+    }
+
+    // FUTURE — хвост индекса после now. CURRENT — отрезок (now - самая длинная бронь пользователя, now]:
+    // раньше начавшиеся к now уже закончились. PAST — голова до now: из неё отсеиваются только текущие брони,
+    // остальное и есть результат. Прочие состояния фильтруют весь список
+    private List<Booking> find(UserBookings user, BookingState state, LocalDateTime now) {
+        if (user == null) {
+            return List.of();
+        }
+        NavigableSet<Key> keys = user.keys;
+        Key pivot = new Key(now, Long.MAX_VALUE);
+        Stream<Key> candidates = switch (state) {
+            case FUTURE -> keys.tailSet(pivot, false).descendingSet().stream();
+            case CURRENT -> keys.subSet(new Key(now.minus(user.longest), Long.MIN_VALUE), true, pivot, true)
+                    .descendingSet().stream();
+            case PAST -> keys.headSet(pivot, true).descendingSet().stream();
+            default -> keys.descendingSet().stream();
+        };
+        return candidates
+                .map(k -> storage.get(k.id()))
+                .filter(Objects::nonNull)
+                .filter(b -> state.matches(b, now))
+                .collect(Collectors.toList());
+    }
+
+    // start и end брони не меняются, поэтому longest только растёт; он обновляется раньше, чем бронь
+    // попадает в индекс, и читатель, увидевший бронь, видит и её длительность
+    private static void link(Map<Long, UserBookings> index, Long userId, Booking booking) {
+        if (userId == null) {
+            return;
+        }
+        index.compute(userId, (k, user) -> {
+            UserBookings bookings = user != null ? user : new UserBookings();
+            Duration length = Duration.between(booking.getStart(), booking.getEnd());
+            if (length.compareTo(bookings.longest) > 0) {
+                bookings.longest = length;
+            }
+            bookings.keys.add(new Key(booking.getStart(), booking.getId()));
+            return bookings;
+        });
+    }
+
+    @Override
+    public List<Booking> values() {
+        return new ArrayList<>(storage.values());
+    }
+
+    @Override
+    public long sequence() {
+        return seq.get();
+    }
+
+    @Override
+    public void restore(Collection<Booking> bookings, long sequence) {
+        bookings.forEach(this::put);
+        seq.accumulateAndGet(sequence, Math::max);
+    }
+
+    private record Key(LocalDateTime start, long id) {
+    }
+
+    // брони пользователя по start и длительность самой длинной из них
+    private static final class UserBookings {
+        final NavigableSet<Key> keys = new ConcurrentSkipListSet<>(ORDER);
+        volatile Duration longest = Duration.ZERO;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.NearestBookings;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Брони одной вещи, которые её занимают (WAITING/APPROVED), по началу интервала.
+// Такие интервалы не пересекаются, поэтому и концы идут по возрастанию: для проверки нового интервала
+// достаточно одного соседа, O(log n). Изменения — под lock (ReentrantLock, чтобы не закреплять
+// виртуальный поток на мониторе), чтение без блокировки.
+class ItemBookings {
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    private final NavigableMap<LocalDateTime, Booking> active = new ConcurrentSkipListMap<>();
+
+    // последняя бронь, начавшаяся раньше end, — единственная, которая может заходить на [start, end)
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, Booking> before = active.lowerEntry(end);
+        return before != null && before.getValue().getEnd().isAfter(start);
+    }
+
+    // от now идём в обе стороны по индексу и пропускаем ещё не подтверждённые брони
+    NearestBookings nearest(LocalDateTime now) {
+        Booking last = firstApproved(active.headMap(now, true).descendingMap().values());
+        Booking next = firstApproved(active.tailMap(now, false).values());
+        return last == null && next == null ? null : new NearestBookings(last, next);
+    }
+
+    private static Booking firstApproved(Collection<Booking> bookings) {
+        for (Booking b : bookings) {
+            if (b.getStatus() == BookingStatus.APPROVED) {
+                return b;
+            }
+        }
+        return null;
+    }
+
+    void put(Booking booking) {
+        active.put(booking.getStart(), booking);
+    }
+
+    void remove(Booking booking) {
+        active.remove(booking.getStart(), booking);
+    }
+}
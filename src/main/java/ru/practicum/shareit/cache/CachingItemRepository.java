@@ -0,0 +1,107 @@
+package ru.practicum.shareit.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Read-through кеш findById. Списки и поиск идут мимо кеша: они постраничные и зависят от многих вещей.
+// После update запись сбрасывается (и при конфликте версий тоже — значит, в кеше устаревшая копия)
+@RequiredArgsConstructor
+public class CachingItemRepository implements ItemRepository {
+
+    private final ItemRepository delegate;
+    private final Cache<Long, Item> cache;
+
+    @Override
+    public Item save(Item item) {
+        Item saved = delegate.save(item);
+        cache.put(saved.getId(), saved);
+        return saved;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> saved = delegate.saveAll(items);
+        saved.forEach(i -> cache.put(i.getId(), i));
+        return saved;
+    }
+
+    @Override
+    public Item update(Item item) {
+        try {
+            return delegate.update(item);
+        } finally {
+            cache.invalidate(item.getId());
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        try {
+            delegate.deleteAll(ids);
+        } finally {
+            cache.invalidateAll(ids);
+        }
+    }
+
+    // отсутствующие id не кешируются: Caffeine не хранит null
+    @Override
+    public Optional<Item> findById(Long id) {
+        return Optional.ofNullable(cache.get(id, k -> delegate.findById(k).orElse(null)));
+    }
+
+    // промахи кеша загружаются одним обращением к хранилищу
+    @Override
+    public Map<Long, Item> findAllById(Collection<Long> ids) {
+        return cache.getAll(ids, missing -> delegate.findAllById(Set.copyOf(missing)));
+    }
+
+    @Override
+    public List<Item> findByOwnerId(Long ownerId, PageParams page) {
+        return delegate.findByOwnerId(ownerId, page);
+    }
+
+    @Override
+    public Stream<Item> streamByOwnerId(Long ownerId, PageParams page) {
+        return delegate.streamByOwnerId(ownerId, page);
+    }
+
+    @Override
+    public List<Item> findByRequestIds(Collection<Long> requestIds) {
+        return delegate.findByRequestIds(requestIds);
+    }
+
+    @Override
+    public List<Item> searchAvailableByText(String text, PageParams page) {
+        return delegate.searchAvailableByText(text, page);
+    }
+
+    @Override
+    public Stream<Item> streamAvailableByText(String text, PageParams page) {
+        return delegate.streamAvailableByText(text, page);
+    }
+
+    @Override
+    public Stream<Item> streamAvailable() {
+        return delegate.streamAvailable();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Set<Long> findOwnerIds() {
+        return delegate.findOwnerIds();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Read-through кеш findById — в первую очередь для проверки владельца в ItemService.
+// Проверка email и списки идут мимо кеша; update и deleteById сбрасывают запись
+@RequiredArgsConstructor
+public class CachingUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final Cache<Long, User> cache;
+
+    @Override
+    public User save(User user) {
+        User saved = delegate.save(user);
+        cache.put(saved.getId(), saved);
+        return saved;
+    }
+
+    @Override
+    public List<User> saveAll(List<User> users) {
+        List<User> saved = delegate.saveAll(users);
+        saved.forEach(u -> cache.put(u.getId(), u));
+        return saved;
+    }
+
+    @Override
+    public User update(User user) {
+        try {
+            return delegate.update(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(cache.get(id, k -> delegate.findById(k).orElse(null)));
+    }
+
+    // промахи кеша загружаются одним обращением к хранилищу
+    @Override
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        return cache.getAll(ids, missing -> delegate.findAllById(Set.copyOf(missing)));
+    }
+
+    @Override
+    public List<User> findAll(PageParams page) {
+        return delegate.findAll(page);
+    }
+
+    @Override
+    public Stream<User> streamAll(PageParams page) {
+        return delegate.streamAll(page);
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean existsByEmail(String email, Long ignoreUserId) {
+        return delegate.existsByEmail(email, ignoreUserId);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+// При shareit.cache.enabled=true сервисы получают кеширующие обёртки (@Primary),
+// а сами хранилища внедряются в них по квалификатору BACKEND.
+// Метрики: cache.gets{cache=items|users,result=hit|miss}, cache.evictions, cache.size
+@Configuration
+@EnableConfigurationProperties(StorageCacheProperties.class)
+@ConditionalOnProperty(name = "shareit.cache.enabled", havingValue = "true")
+public class StorageCacheConfig {
+
+    public static final String BACKEND = "storageBackend";
+
+    @Bean
+    @Primary
+    public ItemRepository cachingItemRepository(@Qualifier(BACKEND) ItemRepository items,
+                                                StorageCacheProperties props,
+                                                MeterRegistry registry) {
+        return new CachingItemRepository(items, cache(props.itemsMaxSize(), props, registry, "items"));
+    }
+
+    @Bean
+    @Primary
+    public UserRepository cachingUserRepository(@Qualifier(BACKEND) UserRepository users,
+                                                StorageCacheProperties props,
+                                                MeterRegistry registry) {
+        return new CachingUserRepository(users, cache(props.usersMaxSize(), props, registry, "users"));
+    }
+
+    private static <V> Cache<Long, V> cache(long maxSize, StorageCacheProperties props,
+                                            MeterRegistry registry, String name) {
+        Cache<Long, V> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(props.ttl())
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+}
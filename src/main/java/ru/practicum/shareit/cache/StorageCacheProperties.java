@@ -0,0 +1,15 @@
+package ru.practicum.shareit.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// shareit.cache.*: кеш findById перед репозиториями вещей и пользователей
+@ConfigurationProperties("shareit.cache")
+public record StorageCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") long itemsMaxSize,
+        @DefaultValue("10000") long usersMaxSize,
+        @DefaultValue("5m") Duration ttl) {
+}
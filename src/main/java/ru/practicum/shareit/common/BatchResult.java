@@ -0,0 +1,39 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.util.List;
+
+// Результат одного элемента пакетного запроса: index — позиция во входном массиве,
+// status — HTTP-код, который получил бы отдельный запрос; при успехе заполнен value, иначе error
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult<T> {
+
+    // больше элементов за раз не принимаем: весь пакет проверяется и держится в памяти целиком
+    public static final int MAX_SIZE = 10_000;
+
+    int index;
+    int status;
+    T value;
+    String error;
+
+    public static void checkSize(List<?> elements) {
+        if (elements == null) {
+            throw new ValidationException("Тело запроса не должно быть пустым");
+        }
+        if (elements.size() > MAX_SIZE) {
+            throw new ValidationException("В пакете не больше " + MAX_SIZE + " элементов");
+        }
+    }
+
+    public static <T> BatchResult<T> ok(int index, T value) {
+        return new BatchResult<>(index, 200, value, null);
+    }
+
+    public static <T> BatchResult<T> failed(int index, int status, String error) {
+        return new BatchResult<>(index, status, null, error);
+    }
+}
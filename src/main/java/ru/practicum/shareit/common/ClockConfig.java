@@ -0,0 +1,16 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    // «сейчас» для состояний броней и отзывов берётся отсюда: тесты подменяют часы и двигают время сами
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.common;
+
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Сильные ETag вида "<версия>-<часть>-...": первая часть — версия сущности из хранилища,
+// остальные описывают вложенные в представление данные (отзывы, брони). Кавычки добавляет Spring
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(long version, long... parts) {
+        StringBuilder tag = new StringBuilder().append(version);
+        for (long part : parts) {
+            tag.append('-').append(part);
+        }
+        return tag.toString();
+    }
+
+    // версии из If-Match; null — заголовка нет или это "*", то есть подойдёт любая версия.
+    // Заголовок может перечислять теги через запятую (RFC 9110) — подходит любой из них.
+    // Слабый или чужой тег не совпадёт ни с одной версией (If-Match сравнивает теги строго)
+    public static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String part : ifMatch.split(",")) {
+            Long version = strongVersion(part.trim());
+            if (version != null) {
+                versions.add(version);
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("Версия в If-Match не совпадает с текущей: " + ifMatch);
+        }
+        return versions;
+    }
+
+    // версия из одного сильного тега "<версия>-..."; null — тег слабый или не наш
+    private static Long strongVersion(String tag) {
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int dash = value.indexOf('-');
+        try {
+            return Long.parseLong(dash < 0 ? value : value.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
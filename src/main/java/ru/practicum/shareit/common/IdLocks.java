@@ -0,0 +1,61 @@
+package ru.practicum.shareit.common;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Блокировки по id сущности, разбитые на полосы. Журнал фиксирует изменение до того, как оно попадает
+// в память, поэтому между проверкой версии и публикацией хранилище держит полосу id: изменения одной
+// сущности пишутся в журнал и применяются в одном порядке. Изменения разных полос идут параллельно
+// и фиксируются общим fsync
+public final class IdLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public IdLocks(int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Число полос должно быть степенью двойки: " + stripes);
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(long id, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripe(id)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // полосы захватываются по возрастанию номера, поэтому пакеты с пересекающимися id не взаимоблокируются
+    public <T> T withLocks(Collection<Long> ids, Supplier<T> action) {
+        int[] held = ids.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripe)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int stripe : held) {
+                stripes[stripe].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[held[i]].unlock();
+            }
+        }
+    }
+
+    private int stripe(long id) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// shareit.jdbc.*: потоковое чтение из БД (профиль jdbc).
+// fetch-size — сколько строк драйвер забирает с сервера за один запрос курсора
+@ConfigurationProperties("shareit.jdbc")
+public record JdbcStreamProperties(
+        @DefaultValue("500") int fetchSize) {
+}
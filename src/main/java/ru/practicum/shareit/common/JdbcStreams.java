@@ -0,0 +1,76 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.stream.Stream;
+
+// Потоковые запросы к БД порциями по fetch-size строк. Драйвер PostgreSQL открывает курсор, только если
+// запрос идёт внутри транзакции (autoCommit выключен) и задан fetchSize; в режиме автокоммита он читает
+// весь результат в память, и потоковая выдача теряет смысл.
+// Поток читается уже после выхода из контроллера, в потоке записи ответа, поэтому транзакция привязана
+// не к текущему потоку, а к своему соединению: оно берётся из пула на время чтения, транзакция только
+// на чтение и завершается вместе с закрытием потока (NdjsonWriter закрывает его всегда)
+@Component
+@Profile("jdbc")
+@EnableConfigurationProperties(JdbcStreamProperties.class)
+public class JdbcStreams {
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+
+    public JdbcStreams(DataSource dataSource, JdbcStreamProperties props) {
+        this.dataSource = dataSource;
+        this.fetchSize = props.fetchSize();
+    }
+
+    public <T> Stream<T> query(String sql, SqlParameterSource params, RowMapper<T> mapper) {
+        Connection con;
+        try {
+            con = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new CannotGetJdbcConnectionException("Нет соединения с БД для потокового чтения", e);
+        }
+        try {
+            con.setAutoCommit(false);
+            con.setReadOnly(true);
+            // соединение закрывает finish, а не JdbcTemplate после чтения
+            JdbcTemplate template = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+            template.setFetchSize(fetchSize);
+            return new NamedParameterJdbcTemplate(template).queryForStream(sql, params, mapper)
+                    .onClose(() -> finish(con));
+        } catch (SQLException | RuntimeException e) {
+            try {
+                finish(con);
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new DataAccessResourceFailureException("Не удалось начать транзакцию для потокового чтения", e);
+        }
+    }
+
+    // транзакция только читала, откат освобождает курсор так же, как фиксация
+    private static void finish(Connection con) {
+        try (con) {
+            con.rollback();
+            con.setReadOnly(false);
+            con.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Не удалось завершить транзакцию потокового чтения", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Пишет элементы потока в ответ по одному (application/x-ndjson: один JSON-объект на строку),
+// не собирая весь список в памяти
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper mapper;
+
+    public ResponseEntity<StreamingResponseBody> write(Stream<?> values) {
+        StreamingResponseBody body = out -> {
+            // без flush после каждого объекта: генератор сам сбрасывает буфер по мере заполнения
+            ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (values; JsonGenerator gen = mapper.createGenerator(out)) {
+                gen.setRootValueSeparator(null);
+                Iterator<?> it = values.iterator();
+                while (it.hasNext()) {
+                    writer.writeValue(gen, it.next());
+                    gen.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(MEDIA_TYPE), StandardCharsets.UTF_8))
+                .body(body);
+    }
+}
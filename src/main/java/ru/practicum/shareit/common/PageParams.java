@@ -0,0 +1,72 @@
+package ru.practicum.shareit.common;
+
+import lombok.Value;
+import ru.practicum.shareit.common.collections.LongIdSet;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Параметры страницы для списков, упорядоченных по id:
+// afterId — курсор (только id > afterId), from — смещение, size — размер страницы
+@Value
+public class PageParams {
+
+    public static final PageParams ALL = new PageParams(null, 0, Integer.MAX_VALUE);
+
+    Long afterId;
+    int from;
+    int size;
+
+    public static PageParams of(Long afterId, Integer from, Integer size) {
+        int offset = from != null ? from : 0;
+        if (offset < 0) {
+            throw new ValidationException("Параметр from не может быть отрицательным");
+        }
+        if (size != null && size <= 0) {
+            throw new ValidationException("Параметр size должен быть положительным");
+        }
+        if (afterId == null && offset == 0 && size == null) {
+            return ALL;
+        }
+        return new PageParams(afterId, offset, size != null ? size : Integer.MAX_VALUE);
+    }
+
+    // Страница поверх отсортированного набора id: O(log n) на курсор + from + size.
+    // Поток ленивый, поэтому годится и для потоковой выдачи без материализации списка.
+    // loader может вернуть null для уже удалённого id — такие пропускаются
+    public <T> Stream<T> stream(NavigableSet<Long> ids, Function<Long, T> loader) {
+        NavigableSet<Long> tail = afterId != null ? ids.tailSet(afterId, false) : ids;
+        return tail.stream()
+                .map(loader)
+                .filter(Objects::nonNull)
+                .skip(from)
+                .limit(size);
+    }
+
+    public <T> List<T> slice(NavigableSet<Long> ids, Function<Long, T> loader) {
+        return stream(ids, loader).collect(Collectors.toList());
+    }
+
+    // то же поверх набора без упаковки id
+    public <T> Stream<T> stream(LongIdSet ids, LongFunction<T> loader) {
+        return page(ids.streamAfter(afterOrMin()), loader);
+    }
+
+    // id уже по возрастанию и уже после курсора (см. LongIdSet.intersect); применяются from и size
+    public <T> Stream<T> page(LongStream ids, LongFunction<T> loader) {
+        return ids.mapToObj(loader)
+                .filter(Objects::nonNull)
+                .skip(from)
+                .limit(size);
+    }
+
+    // курсор для поиска по примитивным наборам: без курсора подходят все id
+    public long afterOrMin() {
+        return afterId != null ? afterId : Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.common;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Supplier;
+
+// Представление и его ETag, посчитанные по одному снимку сущности, поэтому тег всегда описывает именно это тело.
+// Тело собирается лениво: при совпавшем If-None-Match (304) оно не нужно
+@RequiredArgsConstructor
+public final class Tagged<T> {
+
+    @Getter
+    private final String etag;
+    private final Supplier<T> body;
+
+    public T getBody() {
+        return body.get();
+    }
+}
@@ -0,0 +1,224 @@
+package ru.practicum.shareit.common.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+// Конкурентный long -> V без упаковки ключа и без узла на запись. Ключи распределены по SEGMENTS сегментам,
+// сегмент — открытая адресация под своей StampedLock. Чтение оптимистичное, без записи в общую память;
+// если в сегмент в это время писали, чтение повторяется под блокировкой чтения.
+// compute выполняется под блокировкой записи сегмента, поэтому изменения одного ключа применяются по очереди,
+// а ключи других сегментов меняются параллельно. Блокировка нереентерабельна: функция в compute не должна
+// обращаться к этой же карте. Значение null не хранится, ключ 0 зарезервирован
+public final class ConcurrentLongObjectMap<V> {
+
+    private static final int SEGMENTS = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public ConcurrentLongObjectMap() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) segment(key).get(key);
+    }
+
+    // новое значение; null из remapping удаляет ключ
+    @SuppressWarnings("unchecked")
+    public V compute(long key, UnaryOperator<V> remapping) {
+        return (V) segment(key).compute(key, old -> remapping.apply((V) old));
+    }
+
+    public V computeIfPresent(long key, UnaryOperator<V> remapping) {
+        return compute(key, old -> old != null ? remapping.apply(old) : null);
+    }
+
+    public void put(long key, V value) {
+        compute(key, old -> value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        Object[] removed = new Object[1];
+        segment(key).compute(key, old -> {
+            removed[0] = old;
+            return null;
+        });
+        return (V) removed[0];
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size.get();
+        }
+        return size;
+    }
+
+    // снимок значений; сегменты читаются по очереди, поэтому согласован он только в пределах сегмента
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        for (Segment segment : segments) {
+            segment.collect((List<Object>) values);
+        }
+        return values;
+    }
+
+    private Segment segment(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Ключ 0 зарезервирован");
+        }
+        return segments[(int) (mix(key) >>> 58)];
+    }
+
+    private static long mix(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    // ключи и значения меняются только под блокировкой записи; при росте подменяется вся таблица,
+    // поэтому читатель видит согласованные keys/values/mask одной таблицы
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(16);
+        private final AtomicInteger size = new AtomicInteger();
+
+        Object get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            Object value = table.find(key);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return table.find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        Object compute(long key, UnaryOperator<Object> remapping) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int at = t.indexOf(key);
+                Object old = at >= 0 ? t.values[at] : null;
+                Object value = remapping.apply(old);
+                if (value == null) {
+                    if (at >= 0) {
+                        t.shiftBack(at);
+                        size.decrementAndGet();
+                    }
+                } else if (at >= 0) {
+                    t.values[at] = value;
+                } else {
+                    t.insert(key, value);
+                    if (size.incrementAndGet() > t.keys.length / 4 * 3) {
+                        table = t.grown();
+                    }
+                }
+                return value;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void collect(List<Object> out) {
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                for (int i = 0; i < t.keys.length; i++) {
+                    if (t.keys[i] != 0) {
+                        out.add(t.values[i]);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private static final class Table {
+
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+
+        // при оптимистичном чтении таблицу могут менять параллельно, поэтому проход ограничен её длиной
+        Object find(long key) {
+            for (int i = slot(key), n = 0; n < keys.length; i = (i + 1) & mask, n++) {
+                long k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == 0) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        int indexOf(long key) {
+            for (int i = slot(key); ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return i;
+                }
+                if (k == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        void insert(long key, Object value) {
+            int i = slot(key);
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            values[i] = value;
+            keys[i] = key;
+        }
+
+        void shiftBack(int free) {
+            for (int j = (free + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = slot(keys[j]);
+                boolean stays = free <= j ? free < home && home <= j : free < home || home <= j;
+                if (!stays) {
+                    keys[free] = keys[j];
+                    values[free] = values[j];
+                    free = j;
+                }
+            }
+            keys[free] = 0;
+            values[free] = null;
+        }
+
+        Table grown() {
+            Table next = new Table(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    next.insert(keys[i], values[i]);
+                }
+            }
+            return next;
+        }
+
+        private int slot(long key) {
+            long h = mix(key);
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package ru.practicum.shareit.common.collections;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+// Отсортированный набор id без повторов поверх long[]: 8 байт на id вместо Long и узла ConcurrentSkipListSet.
+// Версии неизменяемы для читателей: with/without возвращают новую версию, и полученную версию можно обходить
+// без блокировок. Id больше последнего (обычный случай — id выдаются по возрастанию) дописывается в запас
+// общего массива за амортизированное O(1): прежние версии этот хвост не видят. Вставка в середину и удаление
+// копируют массив. Поэтому писатель у набора один (например, внутри ConcurrentHashMap.compute по ключу)
+// и пишет только в последнюю версию
+public final class LongIdSet {
+
+    public static final LongIdSet EMPTY = new LongIdSet(new long[0], 0);
+
+    private final long[] ids;
+    private final int size;
+
+    private LongIdSet(long[] ids, int size) {
+        this.ids = ids;
+        this.size = size;
+    }
+
+    public static LongIdSet of(long... values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (n == 0 || sorted[i] != sorted[n - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n == 0 ? EMPTY : new LongIdSet(sorted, n);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public LongIdSet with(long id) {
+        if (size == 0 || id > ids[size - 1]) {
+            if (size < ids.length) {
+                ids[size] = id;
+                return new LongIdSet(ids, size + 1);
+            }
+            long[] grown = Arrays.copyOf(ids, size + (size >> 1) + 4);
+            grown[size] = id;
+            return new LongIdSet(grown, size + 1);
+        }
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at >= 0) {
+            return this;
+        }
+        int insert = -at - 1;
+        long[] copy = new long[size + 1 + (size >> 3)];
+        System.arraycopy(ids, 0, copy, 0, insert);
+        copy[insert] = id;
+        System.arraycopy(ids, insert, copy, insert + 1, size - insert);
+        return new LongIdSet(copy, size + 1);
+    }
+
+    public LongIdSet without(long id) {
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at < 0) {
+            return this;
+        }
+        if (size == 1) {
+            return EMPTY;
+        }
+        long[] copy = new long[size - 1];
+        System.arraycopy(ids, 0, copy, 0, at);
+        System.arraycopy(ids, at + 1, copy, at, size - at - 1);
+        return new LongIdSet(copy, size - 1);
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(ids, 0, size);
+    }
+
+    // id больше after по возрастанию
+    public LongStream streamAfter(long after) {
+        return Arrays.stream(ids, indexAfter(after), size);
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // объединение слиянием отсортированных массивов; наборов обычно единицы, поэтому слияние попарное
+    public static LongIdSet union(Collection<LongIdSet> sets) {
+        LongIdSet result = EMPTY;
+        for (LongIdSet set : sets) {
+            result = result.isEmpty() ? set : merge(result, set);
+        }
+        return result;
+    }
+
+    // Пересечение по возрастанию, только id больше after. Поток ленивый: перебор идёт по самому короткому
+    // набору и останавливается вместе с потоком (например, на limit страницы), а курсоры в остальных наборах
+    // только продвигаются вперёд экспоненциальным поиском — длинный набор не просматривается целиком
+    public static LongStream intersect(List<LongIdSet> sets, long after) {
+        if (sets.isEmpty()) {
+            return LongStream.empty();
+        }
+        LongIdSet[] bySize = sets.toArray(new LongIdSet[0]);
+        Arrays.sort(bySize, Comparator.comparingInt(LongIdSet::size));
+        if (bySize.length == 1) {
+            return bySize[0].streamAfter(after);
+        }
+        return StreamSupport.longStream(new Intersection(bySize, after), false);
+    }
+
+    private int indexAfter(long after) {
+        if (size == 0 || after < ids[0]) {
+            return 0;
+        }
+        int at = Arrays.binarySearch(ids, 0, size, after);
+        return at >= 0 ? at + 1 : -at - 1;
+    }
+
+    // первая позиция не раньше from, где id >= target: шаг удваивается, затем бинарный поиск в последнем отрезке
+    private int gallop(int from, long target) {
+        if (from >= size || ids[from] >= target) {
+            return from;
+        }
+        int bound = 1;
+        while (from + bound < size && ids[from + bound] < target) {
+            bound <<= 1;
+        }
+        int lo = from + (bound >> 1) + 1;
+        int hi = Math.min(from + bound, size);
+        int at = Arrays.binarySearch(ids, lo, hi, target);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    private static LongIdSet merge(LongIdSet a, LongIdSet b) {
+        long[] out = new long[a.size + b.size];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.size && j < b.size) {
+            long x = a.ids[i];
+            long y = b.ids[j];
+            if (x <= y) {
+                i++;
+                if (x == y) {
+                    j++;
+                }
+                out[n++] = x;
+            } else {
+                j++;
+                out[n++] = y;
+            }
+        }
+        while (i < a.size) {
+            out[n++] = a.ids[i++];
+        }
+        while (j < b.size) {
+            out[n++] = b.ids[j++];
+        }
+        return new LongIdSet(out, n);
+    }
+
+    private static final class Intersection extends Spliterators.AbstractLongSpliterator {
+
+        private final LongIdSet[] sets;
+        private final int[] cursors;
+
+        Intersection(LongIdSet[] sets, long after) {
+            super(sets[0].size, ORDERED | SORTED | DISTINCT | NONNULL);
+            this.sets = sets;
+            this.cursors = new int[sets.length];
+            for (int i = 0; i < sets.length; i++) {
+                cursors[i] = sets[i].indexAfter(after);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            LongIdSet driver = sets[0];
+            while (cursors[0] < driver.size) {
+                long candidate = driver.ids[cursors[0]++];
+                if (inAll(candidate)) {
+                    action.accept(candidate);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // естественный порядок
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+
+        private boolean inAll(long candidate) {
+            for (int i = 1; i < sets.length; i++) {
+                LongIdSet set = sets[i];
+                int at = set.gallop(cursors[i], candidate);
+                cursors[i] = at;
+                if (at >= set.size) {
+                    // набор исчерпан — дальше совпадений нет
+                    cursors[0] = sets[0].size;
+                    return false;
+                }
+                if (set.ids[at] != candidate) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
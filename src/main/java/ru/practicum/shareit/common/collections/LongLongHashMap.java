@@ -0,0 +1,144 @@
+package ru.practicum.shareit.common.collections;
+
+import java.util.function.LongBinaryOperator;
+
+// long -> long без упаковки в Long и без объекта на запись: открытая адресация с линейным пробированием,
+// при удалении хвост цепочки сдвигается назад (без «надгробий»). 16 байт на ячейку, заполнение до 3/4.
+// Ключ 0 зарезервирован под пустую ячейку (id начинаются с 1). Не потокобезопасна
+public final class LongLongHashMap {
+
+    public static final long MISSING = -1;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    public LongLongHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 4 / 3) - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // память под таблицу в байтах
+    public long footprint() {
+        return 16L * keys.length;
+    }
+
+    public long get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == 0) {
+                return MISSING;
+            }
+        }
+    }
+
+    // предыдущее значение или MISSING
+    public long put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Ключ 0 зарезервирован");
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                long previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > keys.length / 4 * 3) {
+                    grow();
+                }
+                return MISSING;
+            }
+        }
+    }
+
+    public long remove(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == 0) {
+                return MISSING;
+            }
+            if (k == key) {
+                long previous = values[i];
+                shiftBack(i);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    // заменяет каждое значение на fn(ключ, значение); набор ключей не меняется
+    public void replaceValues(LongBinaryOperator fn) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                values[i] = fn.applyAsLong(keys[i], values[i]);
+            }
+        }
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                visitor.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long key, long value);
+    }
+
+    // освободившуюся ячейку занимает следующий элемент цепочки, если его «домашняя» ячейка не лежит между ними
+    private void shiftBack(int free) {
+        for (int j = (free + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean stays = free <= j ? free < home && home <= j : free < home || home <= j;
+            if (!stays) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        keys[free] = 0;
+        values[free] = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int j = slot(key);
+                while (keys[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = key;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    // ключи перемешиваются, чтобы наборы с регулярным шагом (кратным ёмкости) не собирались в длинные цепочки
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.exceptions;
 
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -14,13 +15,17 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
 
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
 @Slf4j
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final ShareItMetrics metrics;
+
     // 400: бизнес-валидация
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -34,6 +39,15 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleConflict(ConflictException ex) {
         log.warn("Conflict: {}", ex.getMessage());
+        metrics.conflict();
+        return new ErrorResponse(ex.getMessage());
+    }
+
+    // 412: If-Match не совпал с текущей версией
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailed(PreconditionFailedException ex) {
+        log.warn("Precondition failed: {}", ex.getMessage());
         return new ErrorResponse(ex.getMessage());
     }
 
@@ -42,6 +56,15 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleNotFound(NotFoundException ex) {
         log.warn("Not found: {}", ex.getMessage());
+        metrics.notFound();
+        return new ErrorResponse(ex.getMessage());
+    }
+
+    // 503: журнал не пишется, изменения отклоняются, чтение продолжает работать
+    @ExceptionHandler(StorageUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleStorageUnavailable(StorageUnavailableException ex) {
+        log.error("Storage unavailable: {}", ex.getMessage(), ex.getCause());
         return new ErrorResponse(ex.getMessage());
     }
 
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// If-Match не совпал с текущей версией объекта: клиент изменяет устаревшую копию
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// хранилище принимает только чтение: журнал изменений не может подтвердить запись на диск
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StorageUnavailableException extends RuntimeException {
+    public StorageUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
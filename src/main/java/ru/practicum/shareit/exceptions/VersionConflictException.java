@@ -0,0 +1,8 @@
+package ru.practicum.shareit.exceptions;
+
+// Объект изменили параллельно между чтением и записью (версия снимка устарела)
+public class VersionConflictException extends ConflictException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,19 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.ETags;
+import ru.practicum.shareit.common.NdjsonWriter;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.Tagged;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 
 import java.util.List;
@@ -17,40 +28,101 @@ public class ItemController {
     private static final String USER_HEADER = "X-Sharer-User-Id";
 
     private final ItemService service;
+    private final NdjsonWriter ndjson;
 
     @PostMapping
-    public ItemDto create(@RequestHeader(USER_HEADER) Long ownerId,
-                          @RequestBody ItemDto dto) {
+    public Item create(@RequestHeader(USER_HEADER) Long ownerId,
+                       @RequestBody ItemDto dto) {
         log.debug("POST /items ownerId={}, body={}", ownerId, dto);
         return service.create(ownerId, dto);
     }
 
+    // пакетное создание: ответ — результат по каждому элементу в порядке запроса
+    @PostMapping("/batch")
+    public List<BatchResult<Item>> createBatch(@RequestHeader(USER_HEADER) Long ownerId,
+                                               @RequestBody List<ItemDto> dtos) {
+        log.debug("POST /items/batch ownerId={}, size={}", ownerId, dtos.size());
+        return service.createBatch(ownerId, dtos);
+    }
+
+    // пакетное изменение: у каждого патча свой id, ответ — результат по каждому элементу в порядке запроса
+    @PatchMapping("/batch")
+    public List<BatchResult<Item>> updateBatch(@RequestHeader(USER_HEADER) Long ownerId,
+                                               @RequestBody List<ItemDto> patches) {
+        log.debug("PATCH /items/batch ownerId={}, size={}", ownerId, patches.size());
+        return service.updateBatch(ownerId, patches);
+    }
+
+    // If-Match: "<ETag из GET>" — изменение применяется, только если вещь не менялась с тех пор (иначе 412)
     @PatchMapping("/{itemId}")
-    public ItemDto update(@RequestHeader(USER_HEADER) Long ownerId,
-                          @PathVariable Long itemId,
-                          @RequestBody ItemDto patch) {
-        log.debug("PATCH /items/{} ownerId={}, body={}", itemId, ownerId, patch);
-        return service.update(ownerId, itemId, patch);
+    public ResponseEntity<Item> update(@RequestHeader(USER_HEADER) Long ownerId,
+                                       @PathVariable Long itemId,
+                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @RequestBody ItemDto patch) {
+        log.debug("PATCH /items/{} ownerId={}, ifMatch={}, body={}", itemId, ownerId, ifMatch, patch);
+        Item updated = service.update(ownerId, itemId, patch, ETags.expectedVersions(ifMatch));
+        // тело — сама вещь без броней и отзывов, поэтому её тег — только версия
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated);
     }
 
+    // If-None-Match с текущим ETag — 304 без тела; карточка при этом не собирается
     @GetMapping("/{itemId}")
-    public ItemDto getById(@PathVariable Long itemId) {
-        log.debug("GET /items/{}", itemId);
-        return service.getById(itemId);
+    public ResponseEntity<ItemDto> getById(@RequestHeader(name = USER_HEADER, required = false) Long userId,
+                                           @PathVariable Long itemId,
+                                           WebRequest request) {
+        log.debug("GET /items/{} userId={}", itemId, userId);
+        // тег и карточка строятся по одному снимку: правка между ними не даст тело новой версии под старым тегом
+        Tagged<ItemDto> card = service.getTagged(userId, itemId);
+        if (request.checkNotModified(card.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(card.getEtag()).body(card.getBody());
     }
 
     @GetMapping
-    public List<ItemDto> getOwnerItems(@RequestHeader(USER_HEADER) Long ownerId) {
-        log.debug("GET /items ownerId={}", ownerId);
-        return service.getByOwner(ownerId);
+    public List<ItemDto> getOwnerItems(@RequestHeader(USER_HEADER) Long ownerId,
+                                       @RequestParam(required = false) Long afterId,
+                                       @RequestParam(required = false) Integer from,
+                                       @RequestParam(required = false) Integer size) {
+        log.debug("GET /items ownerId={}, afterId={}, from={}, size={}", ownerId, afterId, from, size);
+        return service.getByOwner(ownerId, PageParams.of(afterId, from, size));
+    }
+
+    // потоковая выгрузка: GET /items?stream=true, по одному JSON-объекту на строку
+    @GetMapping(params = "stream=true", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamOwnerItems(@RequestHeader(USER_HEADER) Long ownerId,
+                                                                  @RequestParam(required = false) Long afterId,
+                                                                  @RequestParam(required = false) Integer from,
+                                                                  @RequestParam(required = false) Integer size) {
+        log.debug("GET /items stream ownerId={}, afterId={}, from={}, size={}", ownerId, afterId, from, size);
+        // сервис вызывается до начала записи, чтобы 404 по владельцу ушёл обычным ответом
+        return ndjson.write(service.streamByOwner(ownerId, PageParams.of(afterId, from, size)));
+    }
+
+    @PostMapping("/{itemId}/comment")
+    public CommentDto addComment(@RequestHeader(USER_HEADER) Long userId,
+                                 @PathVariable Long itemId,
+                                 @RequestBody CommentDto dto) {
+        log.debug("POST /items/{}/comment userId={}", itemId, userId);
+        return service.addComment(userId, itemId, dto);
     }
 
     @GetMapping("/search")
-    public List<ItemDto> search(@RequestParam(name = "text") String text) {
-        log.debug("GET /items/search text='{}'", text);
-        if (text == null || text.isBlank()) {
-            return List.of();
-        }
-        return service.search(text.trim());
+    public List<Item> search(@RequestParam(name = "text") String text,
+                             @RequestParam(required = false) Long afterId,
+                             @RequestParam(required = false) Integer from,
+                             @RequestParam(required = false) Integer size) {
+        log.debug("GET /items/search text='{}', afterId={}, from={}, size={}", text, afterId, from, size);
+        // пустой запрос даёт пустую выдачу; afterId — только там, где выдача по id (см. ItemService.search)
+        return service.search(text.trim(), PageParams.of(afterId, from, size));
+    }
+
+    @GetMapping(path = "/search", params = "stream=true", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamSearch(@RequestParam(name = "text") String text,
+                                                              @RequestParam(required = false) Long afterId,
+                                                              @RequestParam(required = false) Integer from,
+                                                              @RequestParam(required = false) Integer size) {
+        log.debug("GET /items/search stream text='{}', afterId={}, from={}, size={}", text, afterId, from, size);
+        return ndjson.write(service.streamSearch(text.trim(), PageParams.of(afterId, from, size)));
     }
 }
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// во входящем POST /items/{itemId}/comment используется только text
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CommentDto {
+    private Long id;
+    private String text;
+    private String authorName;
+    private LocalDateTime created;
+}
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.item.dto;
 
 import lombok.*;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+
+import java.util.List;
 
 @Getter
 @Setter
@@ -14,4 +17,15 @@ public class ItemDto {
     private Boolean available;
     private Long ownerId;
     private Long requestId;
+
+    // заполняются только для владельца вещи (см. ItemEnricher)
+    private BookingShortDto lastBooking;
+    private BookingShortDto nextBooking;
+
+    // заполняются в карточке вещи и в списке вещей владельца
+    private List<CommentDto> comments;
+
+    public ItemDto(Long id, String name, String description, Boolean available, Long ownerId, Long requestId) {
+        this(id, name, description, available, ownerId, requestId, null, null, null);
+    }
 }
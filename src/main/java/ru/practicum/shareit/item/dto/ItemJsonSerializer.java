@@ -0,0 +1,47 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import ru.practicum.shareit.item.model.Item;
+
+import java.io.IOException;
+
+// Пишет Item сразу в генератор, без промежуточного ItemDto и рефлексии.
+// Поля, их порядок и null совпадают с ItemDto без брони и отзывов; version наружу не попадает
+@JsonComponent
+public class ItemJsonSerializer extends JsonSerializer<Item> {
+
+    @Override
+    public void serialize(Item item, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(item);
+        writeLong(gen, "id", item.getId());
+        gen.writeStringField("name", item.getName());
+        gen.writeStringField("description", item.getDescription());
+        if (item.getAvailable() != null) {
+            gen.writeBooleanField("available", item.getAvailable());
+        } else {
+            gen.writeNullField("available");
+        }
+        writeLong(gen, "ownerId", item.getOwnerId());
+        writeLong(gen, "requestId", item.getRequestId());
+        gen.writeNullField("lastBooking");
+        gen.writeNullField("nextBooking");
+        gen.writeNullField("comments");
+        gen.writeEndObject();
+    }
+
+    @Override
+    public Class<Item> handledType() {
+        return Item.class;
+    }
+
+    private static void writeLong(JsonGenerator gen, String name, Long value) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value.longValue());
+        } else {
+            gen.writeNullField(name);
+        }
+    }
+}
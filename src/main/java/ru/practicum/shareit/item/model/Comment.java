@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Отзыв о вещи. Имя автора копируется при создании, чтобы выдача отзывов не ходила за пользователями
+@Value
+@Builder(toBuilder = true)
+public class Comment {
+    Long id;
+    String text;
+    Long itemId;
+    Long authorId;
+    String authorName;
+    LocalDateTime created;
+}
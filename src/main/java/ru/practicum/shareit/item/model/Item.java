@@ -2,18 +2,20 @@ package ru.practicum.shareit.item.model;
 
 import lombok.*;
 
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
+// Неизменяемый снимок вещи: изменения создают новый объект, который репозиторий
+// подменяет по версии (compare-and-set), поэтому читатели никогда не видят наполовину применённый патч
+@Value
+@Builder(toBuilder = true)
 public class Item {
-    private Long id;
-    private String name;
-    private String description;
-    private Boolean available;
+    Long id;
+    String name;
+    String description;
+    Boolean available;
 
     // по ТЗ: пока ссылки храним как id (до БД)
-    private Long ownerId;
-    private Long requestId; // может быть null, если не по запросу
+    Long ownerId;
+    Long requestId; // может быть null, если не по запросу
+
+    @With
+    long version;
 }
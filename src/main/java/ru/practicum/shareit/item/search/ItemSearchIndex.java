@@ -0,0 +1,559 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.collections.LongLongHashMap;
+import ru.practicum.shareit.common.collections.LongObjectHashMap;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+import static ru.practicum.shareit.common.collections.LongLongHashMap.MISSING;
+
+// Полнотекстовый индекс доступных вещей с ранжированием BM25F: название весит больше описания,
+// длинные поля нормируются по средней длине. Слово запроса совпадает с термом точно, как префикс
+// или с опечаткой (расстояние Дамерау — Левенштейна), расширения дают меньший вклад, чем точное совпадение.
+// За ранжированными идут вещи, у которых запрос лишь входит подстрокой в name или description
+// (поиск подстроки хранилища, в памяти — триграммный индекс), по возрастанию id: выдача остаётся
+// надмножеством прежнего contains без учёта регистра.
+// Не зависит от хранилища: строится из ItemRepository.streamAvailable при первом обращении (к этому моменту
+// журнал уже восстановлен), дальше его обновляют put/remove после записи в хранилище — вне порядка записей
+// одной вещи, поэтому и добавление, и удаление сравнивают версии. Ставшая недоступной вещь оставляет надгробие
+// с версией снятия: снимок не новее проиндексированного или надгробия пропускается, и опоздавший
+// put старой доступной версии не вернёт вещь в выдачу, а опоздавший «недоступный» снимок не выкинет новую.
+// Удалённые вещи надгробий не оставляют: put под блокировкой индекса сверяется с хранилищем,
+// а remove вызывается уже после удаления из него, так что опоздавший снимок удалённой вещи пропускается.
+// Один ReentrantReadWriteLock на весь индекс: запросы читают параллельно, изменения — по одному.
+// Каждое изменение поднимает версию каталога — по ней SearchResultCache узнаёт устаревшую выдачу.
+// Индекс живёт в куче своего процесса, поэтому включён только вместе с хранилищем в памяти:
+// в jdbc до него не дошли бы записи других экземпляров, а offheap вернул бы каталог в кучу.
+// Там ищет само хранилище (pg_trgm в БД, обход блоков вне кучи)
+@Component
+@Profile("!jdbc & !offheap")
+public class ItemSearchIndex {
+
+    // параметры BM25: насыщение частоты терма и нормировка по длине поля
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    // вклад расширений запроса относительно точного совпадения
+    private static final double PREFIX_FACTOR = 0.7;
+    private static final double TYPO_FACTOR = 0.4;
+
+    // термов словаря на одно префиксное расширение: короткий префикс иначе разворачивается в полсловаря,
+    // поэтому берутся самые частые продолжения
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    // опечатки ищутся в словах от TYPOS_FROM символов (одна правка), от TWO_TYPOS_FROM — до двух;
+    // первая буква должна совпасть, иначе пришлось бы сравнивать запрос со всем словарём
+    private static final int TYPOS_FROM = 4;
+    private static final int TWO_TYPOS_FROM = 8;
+
+    private final ItemRepository repo;
+    private final SearchResultCache cache;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // терм -> (id -> tf в названии << 32 | tf в описании); TreeMap — ради диапазонов для префиксов и опечаток
+    private final NavigableMap<String, LongLongHashMap> postings = new TreeMap<>();
+    private final LongObjectHashMap<Doc> docs = new LongObjectHashMap<>(1024);
+    // id -> версия, с которой вещь стала недоступной; запись живёт, пока вещь не проиндексирована снова или не удалена
+    private final LongLongHashMap removed = new LongLongHashMap(16);
+    private long nameLengthSum;
+    private long descriptionLengthSum;
+    private long catalogVersion;
+    private volatile boolean built;
+
+    public ItemSearchIndex(ItemRepository repo, SearchResultCache cache) {
+        this.repo = repo;
+        this.cache = cache;
+    }
+
+    // снимок после записи в хранилище; недоступная вещь из индекса убирается
+    public void put(Item item) {
+        long id = item.getId();
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            writeLocked(() -> {
+                if (stored(id)) {
+                    drop(id, item.getVersion());
+                }
+            });
+            return;
+        }
+        Doc fresh = Doc.of(item);
+        writeLocked(() -> {
+            if (stored(id)) {
+                index(id, fresh);
+            }
+        });
+    }
+
+    // вызывается после удаления вещей из хранилища: их снимки, пришедшие позже, put уже не примет
+    public void remove(Collection<Long> ids) {
+        writeLocked(() -> {
+            for (Long id : ids) {
+                Doc old = docs.get(id);
+                if (old != null) {
+                    unlink(id, old);
+                }
+                removed.remove(id);
+            }
+        });
+    }
+
+    // надгробий недоступных вещей
+    int tombstones() {
+        lock.readLock().lock();
+        try {
+            return removed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Страница from/size по убыванию релевантности, при равенстве — по возрастанию id. Вещь попадает в выдачу,
+    // если с ней совпало каждое слово запроса. Счёт набирается только у кандидатов, а в порядок ставятся лишь
+    // from + size лучших (куча ограниченного размера), весь список совпадений не сортируется.
+    // Ранжированные id кешируются по нормализованному запросу (слова без повторов, по алфавиту) до изменения каталога.
+    // Если ранжированных не хватило на страницу, она добирается совпадениями подстроки; их id кешируются
+    // вместе с полной ранжированной выдачей, и запрос без size на горячем пути не просматривает хранилище.
+    // loader берёт вещь из хранилища и возвращает null, если её уже нет или она недоступна — такие пропускаются
+    public <T> List<T> search(String text, int from, int size, LongFunction<T> loader) {
+        try (Stream<T> page = stream(text, from, size, loader)) {
+            return page.toList();
+        }
+    }
+
+    // та же страница для потоковой выдачи: ранжируются только id, вещи загружаются по мере чтения
+    public <T> Stream<T> stream(String text, int from, int size, LongFunction<T> loader) {
+        int k = (int) Math.min((long) from + size, Integer.MAX_VALUE);
+        Ranked ranked = ranked(text, k);
+        long[] ids = ranked.ids();
+        // массив короче k — значит, в нём все ранжированные совпадения (см. SearchResultCache.get)
+        if (ids.length < k) {
+            long[] tail = tail(text, ranked);
+            if (tail == null) {
+                // хвост не помещается в кеш: подстрока ищется заново и читается лениво
+                int skip = Math.max(from - ids.length, 0);
+                int limit = k - Math.max(from, ids.length);
+                return Stream.concat(page(ids, from, k, loader), substringMatches(text, ids, skip, limit, loader));
+            }
+            long[] all = Arrays.copyOf(ids, ids.length + tail.length);
+            System.arraycopy(tail, 0, all, ids.length, tail.length);
+            ids = all;
+        }
+        return page(ids, from, k, loader);
+    }
+
+    private static <T> Stream<T> page(long[] ids, int from, int k, LongFunction<T> loader) {
+        return Arrays.stream(ids, Math.min(from, ids.length), Math.min(ids.length, k))
+                .mapToObj(loader)
+                .filter(Objects::nonNull);
+    }
+
+    // вещи с запросом-подстрокой, кроме ранжированных, по возрастанию id — из кеша или из хранилища;
+    // null, если их больше, чем кеш держит на запрос
+    private long[] tail(String text, Ranked ranked) {
+        if (ranked.query() != null) {
+            long[] cached = cache.tail(ranked.query(), ranked.version(), text);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long[] seen = ranked.ids().clone();
+        Arrays.sort(seen);
+        int room = SearchResultCache.MAX_ENTRY_IDS - ranked.ids().length;
+        long[] tail;
+        try (Stream<Item> found = repo.streamAvailableByText(text, PageParams.ALL)) {
+            tail = found.mapToLong(Item::getId)
+                    .filter(id -> Arrays.binarySearch(seen, id) < 0)
+                    .limit(room + 1L)
+                    .toArray();
+        }
+        if (tail.length > room) {
+            return null;
+        }
+        if (ranked.query() != null) {
+            cache.putTail(ranked.query(), ranked.version(), text, tail);
+        }
+        return tail;
+    }
+
+    // вещи с запросом-подстрокой, кроме уже ранжированных, по возрастанию id
+    private <T> Stream<T> substringMatches(String text, long[] ranked, int skip, int limit, LongFunction<T> loader) {
+        long[] seen = ranked.clone();
+        Arrays.sort(seen);
+        Stream<Item> found = repo.streamAvailableByText(text, PageParams.ALL);
+        return found.mapToLong(Item::getId)
+                .filter(id -> Arrays.binarySearch(seen, id) < 0)
+                .skip(skip)
+                .limit(limit)
+                .mapToObj(loader)
+                .filter(Objects::nonNull)
+                .onClose(found::close);
+    }
+
+    // id лучших k (или больше — сколько держит кеш) по убыванию счёта, с запросом и версией каталога,
+    // на которой они посчитаны; у запроса без слов query — null
+    private Ranked ranked(String text, int k) {
+        List<String> words = TextNormalizer.tokens(text).stream().distinct().sorted().toList();
+        if (words.isEmpty()) {
+            return new Ranked(null, 0, new long[0]);
+        }
+        if (!built) {
+            writeLocked(() -> { });
+        }
+        String query = String.join(" ", words);
+        lock.readLock().lock();
+        try {
+            long[] ranked = cache.get(query, catalogVersion, k);
+            if (ranked == null) {
+                int depth = cache.depth(k);
+                ranked = top(words, depth);
+                cache.put(query, catalogVersion, ranked, depth);
+            }
+            return new Ranked(query, catalogVersion, ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void writeLocked(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                try (Stream<Item> all = repo.streamAvailable()) {
+                    all.forEach(item -> index(item.getId(), Doc.of(item)));
+                }
+                built = true;
+            }
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // вызывается под блокировкой записи: удаление, прошедшее до неё, здесь уже видно
+    private boolean stored(long id) {
+        return repo.findById(id).isPresent();
+    }
+
+    private void index(long id, Doc fresh) {
+        Doc old = docs.get(id);
+        if (old != null && old.version() >= fresh.version()) {
+            return;
+        }
+        long dropped = removed.get(id);
+        if (dropped != MISSING) {
+            if (dropped >= fresh.version()) {
+                return;
+            }
+            removed.remove(id);
+        }
+        if (old != null) {
+            unlink(id, old);
+        }
+        for (int i = 0; i < fresh.terms().length; i++) {
+            postings.computeIfAbsent(fresh.terms()[i], t -> new LongLongHashMap(4)).put(id, fresh.tfs()[i]);
+        }
+        docs.put(id, fresh);
+        nameLengthSum += fresh.nameLength();
+        descriptionLengthSum += fresh.descriptionLength();
+        catalogVersion++;
+    }
+
+    // снятие вещи версии version: проиндексированный снимок новее неё остаётся на месте
+    private void drop(long id, long version) {
+        Doc old = docs.get(id);
+        if (old != null && old.version() > version) {
+            return;
+        }
+        long dropped = removed.get(id);
+        if (dropped == MISSING || dropped < version) {
+            removed.put(id, version);
+        }
+        if (old != null) {
+            unlink(id, old);
+        }
+    }
+
+    private void unlink(long id, Doc old) {
+        for (String term : old.terms()) {
+            LongLongHashMap ids = postings.get(term);
+            ids.remove(id);
+            if (ids.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        docs.remove(id);
+        nameLengthSum -= old.nameLength();
+        descriptionLengthSum -= old.descriptionLength();
+        catalogVersion++;
+    }
+
+    // id лучших k по убыванию счёта
+    private long[] top(List<String> words, int k) {
+        int n = docs.size();
+        if (n == 0) {
+            return new long[0];
+        }
+        // первым идёт самое редкое слово: оно задаёт кандидатов, остальные их только отсеивают
+        List<List<Expansion>> expanded = new ArrayList<>(words.size());
+        for (String word : words) {
+            List<Expansion> expansions = expand(word);
+            if (expansions.isEmpty()) {
+                return new long[0];
+            }
+            expanded.add(expansions);
+        }
+        expanded.sort(Comparator.comparingLong(ItemSearchIndex::frequency));
+
+        double avgName = Math.max(1.0, (double) nameLengthSum / n);
+        double avgDescription = Math.max(1.0, (double) descriptionLengthSum / n);
+        // кандидатов не больше, чем вхождений самого редкого слова — массивы сразу нужного размера
+        Candidates candidates = new Candidates((int) Math.min(frequency(expanded.get(0)), n));
+        for (int round = 0; round < expanded.size(); round++) {
+            int r = round;
+            for (Expansion e : expanded.get(round)) {
+                int df = e.ids().size();
+                double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+                e.ids().forEach((id, tf) -> {
+                    Doc d = docs.get(id);
+                    double weighted = NAME_WEIGHT * (tf >>> 32) / (1 - B + B * d.nameLength() / avgName)
+                            + DESCRIPTION_WEIGHT * (tf & 0xFFFFFFFFL) / (1 - B + B * d.descriptionLength() / avgDescription);
+                    candidates.offer(id, r, e.factor() * idf * weighted * (K1 + 1) / (K1 + weighted));
+                });
+            }
+        }
+        return candidates.top(expanded.size(), k);
+    }
+
+    private List<Expansion> expand(String word) {
+        List<Expansion> expansions = new ArrayList<>();
+        LongLongHashMap exact = postings.get(word);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, 1.0));
+        }
+        // MAX_PREFIX_TERMS самых частых продолжений: куча с самым редким в корне
+        PriorityQueue<LongLongHashMap> frequent = new PriorityQueue<>(Comparator.comparingInt(LongLongHashMap::size));
+        for (LongLongHashMap ids : postings.subMap(word, false, word + Character.MAX_VALUE, true).values()) {
+            if (frequent.size() < MAX_PREFIX_TERMS) {
+                frequent.add(ids);
+            } else if (ids.size() > frequent.peek().size()) {
+                frequent.poll();
+                frequent.add(ids);
+            }
+        }
+        for (LongLongHashMap ids : frequent) {
+            expansions.add(new Expansion(ids, PREFIX_FACTOR));
+        }
+        if (word.length() >= TYPOS_FROM) {
+            int maxEdits = word.length() >= TWO_TYPOS_FROM ? 2 : 1;
+            String first = word.substring(0, Character.charCount(word.codePointAt(0)));
+            for (Map.Entry<String, LongLongHashMap> e
+                    : postings.subMap(first, true, first + Character.MAX_VALUE, true).entrySet()) {
+                String term = e.getKey();
+                // точное совпадение и продолжения уже учтены выше
+                if (Math.abs(term.length() - word.length()) > maxEdits || term.startsWith(word)) {
+                    continue;
+                }
+                int edits = distance(word, term, maxEdits);
+                if (edits <= maxEdits) {
+                    expansions.add(new Expansion(e.getValue(), TYPO_FACTOR / edits));
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private static long frequency(List<Expansion> expansions) {
+        long total = 0;
+        for (Expansion e : expansions) {
+            total += e.ids().size();
+        }
+        return total;
+    }
+
+    // расстояние Дамерау — Левенштейна (перестановка соседних букв — одна правка);
+    // как только вся строка матрицы превысила limit, возвращается limit + 1
+    private static int distance(String a, String b, int limit) {
+        int[] before = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, before[j - 2] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] spare = before;
+            before = previous;
+            previous = current;
+            current = spare;
+        }
+        return previous[b.length()];
+    }
+
+    private record Ranked(String query, long version, long[] ids) {
+    }
+
+    private record Expansion(LongLongHashMap ids, double factor) {
+    }
+
+    private record Doc(long version, int nameLength, int descriptionLength, String[] terms, long[] tfs) {
+
+        static Doc of(Item item) {
+            List<String> name = TextNormalizer.tokens(item.getName());
+            List<String> description = TextNormalizer.tokens(item.getDescription());
+            Map<String, Long> tf = new HashMap<>();
+            for (String t : name) {
+                tf.merge(t, 1L << 32, Long::sum);
+            }
+            for (String t : description) {
+                tf.merge(t, 1L, Long::sum);
+            }
+            String[] terms = new String[tf.size()];
+            long[] tfs = new long[tf.size()];
+            int i = 0;
+            for (Map.Entry<String, Long> e : tf.entrySet()) {
+                terms[i] = e.getKey();
+                tfs[i++] = e.getValue();
+            }
+            return new Doc(item.getVersion(), name.size(), description.size(), terms, tfs);
+        }
+    }
+
+    // Счёт кандидатов в плоских массивах. matched — сколько слов запроса уже совпало: кандидат, пропустивший
+    // слово, дальше не набирает. У одного слова может совпасть несколько расширений — в счёт идёт лучшее
+    private static final class Candidates {
+
+        private final LongLongHashMap slots;
+        private long[] ids;
+        private double[] scores;
+        private double[] best;
+        private int[] matched;
+        private int count;
+
+        Candidates(int expected) {
+            int capacity = Math.max(expected, 16);
+            slots = new LongLongHashMap(capacity);
+            ids = new long[capacity];
+            scores = new double[capacity];
+            best = new double[capacity];
+            matched = new int[capacity];
+        }
+
+        void offer(long id, int round, double score) {
+            long slot = slots.get(id);
+            if (slot == MISSING) {
+                if (round > 0) {
+                    return;
+                }
+                if (count == ids.length) {
+                    int grown = count * 2;
+                    ids = Arrays.copyOf(ids, grown);
+                    scores = Arrays.copyOf(scores, grown);
+                    best = Arrays.copyOf(best, grown);
+                    matched = Arrays.copyOf(matched, grown);
+                }
+                slot = count++;
+                slots.put(id, slot);
+                ids[(int) slot] = id;
+            }
+            int i = (int) slot;
+            if (matched[i] == round) {
+                scores[i] += score;
+                best[i] = score;
+                matched[i] = round + 1;
+            } else if (matched[i] == round + 1 && score > best[i]) {
+                scores[i] += score - best[i];
+                best[i] = score;
+            }
+        }
+
+        // куча на k элементов с худшим в корне: новый кандидат вытесняет корень, только если он лучше
+        long[] top(int rounds, int k) {
+            int[] heap = new int[Math.min(k, count)];
+            int size = 0;
+            for (int i = 0; i < count && heap.length > 0; i++) {
+                if (matched[i] != rounds) {
+                    continue;
+                }
+                if (size < heap.length) {
+                    heap[size] = i;
+                    siftUp(heap, size++);
+                } else if (better(i, heap[0])) {
+                    heap[0] = i;
+                    siftDown(heap, size);
+                }
+            }
+            long[] out = new long[size];
+            while (size > 0) {
+                out[size - 1] = ids[heap[0]];
+                heap[0] = heap[--size];
+                siftDown(heap, size);
+            }
+            return out;
+        }
+
+        private boolean better(int a, int b) {
+            return scores[a] > scores[b] || (scores[a] == scores[b] && ids[a] < ids[b]);
+        }
+
+        private void siftUp(int[] heap, int at) {
+            while (at > 0) {
+                int parent = (at - 1) >>> 1;
+                if (!better(heap[parent], heap[at])) {
+                    break;
+                }
+                swap(heap, parent, at);
+                at = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int size) {
+            int at = 0;
+            while (true) {
+                int worst = at;
+                int left = 2 * at + 1;
+                int right = left + 1;
+                if (left < size && better(heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (right < size && better(heap[worst], heap[right])) {
+                    worst = right;
+                }
+                if (worst == at) {
+                    return;
+                }
+                swap(heap, at, worst);
+                at = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+}
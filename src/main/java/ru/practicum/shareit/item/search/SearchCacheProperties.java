@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// shareit.search.cache.*: кеш ранжированной выдачи поиска вещей.
+// depth — сколько лучших id запоминается на запрос (страницы в пределах depth берутся из одной записи),
+// max-ids — суммарный объём кеша в id; 0 отключает кеш
+@ConfigurationProperties("shareit.search.cache")
+public record SearchCacheProperties(
+        @DefaultValue("100") int depth,
+        @DefaultValue("1000000") long maxIds) {
+}
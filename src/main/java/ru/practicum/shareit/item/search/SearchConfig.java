@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// кеш выдачи нужен только ранжированному индексу, поэтому профили те же, что у ItemSearchIndex
+@Configuration
+@Profile("!jdbc & !offheap")
+@EnableConfigurationProperties(SearchCacheProperties.class)
+public class SearchConfig {
+
+    @Bean
+    public SearchResultCache searchResultCache(SearchCacheProperties props, MeterRegistry registry) {
+        return new SearchResultCache(props, registry);
+    }
+}
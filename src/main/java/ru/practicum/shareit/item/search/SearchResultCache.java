@@ -0,0 +1,116 @@
+package ru.practicum.shareit.item.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Locale;
+
+// Ранжированные id по нормализованному запросу вместе с версией каталога, на которой они посчитаны.
+// Если ранжированная выдача полная, при ней хранится и хвост — совпадения подстроки, — так что повторный
+// запрос без size не просматривает хранилище заново.
+// Любое изменение индекса поднимает версию, поэтому сброс бесплатный: запись другой версии считается
+// устаревшей и пересчитывается при следующем обращении. Вытеснение — W-TinyLFU Caffeine (частота
+// с учётом давности) по суммарному числу id, так что популярные запросы переживают поток разовых.
+// Метрики: shareit.items.search.cache{result=hit|miss|stale}, shareit.items.search.cache.hit.ratio,
+// shareit.items.search.cache.size
+public class SearchResultCache {
+
+    // выдача длиннее (запрос без size по частому слову) не кешируется: места займёт много, а повторяется редко
+    static final int MAX_ENTRY_IDS = 10_000;
+
+    private final Cache<String, Entry> cache;
+    private final int depth;
+    private final boolean enabled;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+
+    public SearchResultCache(SearchCacheProperties props, MeterRegistry registry) {
+        this.depth = props.depth();
+        this.enabled = props.maxIds() > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(props.maxIds())
+                .weigher((String query, Entry e) -> e.ids().length + (e.tail() != null ? e.tail().length : 0) + 1)
+                .build();
+        this.hits = counter(registry, "hit");
+        this.misses = counter(registry, "miss");
+        this.stale = counter(registry, "stale");
+        Gauge.builder("shareit.items.search.cache.hit.ratio", this, SearchResultCache::hitRatio)
+                .description("Доля запросов поиска, выданных из кеша")
+                .register(registry);
+        Gauge.builder("shareit.items.search.cache.size", cache, Cache::estimatedSize)
+                .description("Запросов в кеше поиска")
+                .register(registry);
+    }
+
+    // сколько лучших id считать при промахе, чтобы следующие страницы того же запроса попали в кеш
+    int depth(int requested) {
+        return Math.max(requested, depth);
+    }
+
+    // id лучших k (или все, если совпадений меньше) по запросу на версии version; null — посчитать заново
+    long[] get(String query, long version, int k) {
+        Entry e = cache.getIfPresent(query);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (e.version() != version || (!e.complete() && e.ids().length < k)) {
+            stale.increment();
+            return null;
+        }
+        hits.increment();
+        return e.ids();
+    }
+
+    // ids — лучшие requested по убыванию счёта; если их меньше requested, выдача полная
+    void put(String query, long version, long[] ids, int requested) {
+        if (enabled && ids.length <= MAX_ENTRY_IDS) {
+            cache.put(query, new Entry(version, ids, ids.length < requested, null, null));
+        }
+    }
+
+    // хвост полной выдачи на версии version; подстрока ищется по тексту запроса, а не по нормализованным словам,
+    // поэтому хвост годится только для того же текста. null — хвоста нет, его нужно найти в хранилище
+    long[] tail(String query, long version, String text) {
+        Entry e = enabled ? cache.getIfPresent(query) : null;
+        if (e == null || e.version() != version || e.tail() == null || !e.tailText().equals(tailKey(text))) {
+            return null;
+        }
+        return e.tail();
+    }
+
+    // хвост прикладывается только к полной выдаче той же версии; вместе с ней не длиннее MAX_ENTRY_IDS
+    void putTail(String query, long version, String text, long[] tail) {
+        if (!enabled) {
+            return;
+        }
+        cache.asMap().computeIfPresent(query, (q, e) -> e.version() == version && e.complete()
+                && e.ids().length + tail.length <= MAX_ENTRY_IDS
+                ? new Entry(e.version(), e.ids(), true, tailKey(text), tail)
+                : e);
+    }
+
+    // поиск подстроки не учитывает регистр
+    private static String tailKey(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count() + stale.count();
+        return total > 0 ? hits.count() / total : 0;
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("shareit.items.search.cache")
+                .tag("result", result)
+                .description("Обращения поиска к кешу: hit — из кеша, miss — записи нет, stale — каталог изменился")
+                .register(registry);
+    }
+
+    private record Entry(long version, long[] ids, boolean complete, String tailText, long[] tail) {
+    }
+}
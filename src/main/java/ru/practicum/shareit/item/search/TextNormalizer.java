@@ -0,0 +1,41 @@
+package ru.practicum.shareit.item.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбиение текста на термы: Unicode NFKD без диакритики (ё -> е, й -> и, é -> e, полноширинные цифры -> ASCII),
+// нижний регистр без учёта локали. Терм — непрерывная последовательность букв и цифр, остальное — разделители.
+// Запрос и документы проходят одну и ту же нормализацию, поэтому «Шуруповёрт» находится по «шуруповерт»
+final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    // термы в порядке появления, с повторами
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String s = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < s.length(); ) {
+            int cp = s.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.getType(cp) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(cp)) {
+                token.appendCodePoint(Character.toLowerCase(cp));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.NearestBookings;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.common.ETags;
+import ru.practicum.shareit.common.Tagged;
+import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Дополняет вещи данными из других подсистем (брони, отзывы) сразу для всей страницы:
+// по одному обращению к индексу броней и к отзывам на страницу, а не по запросу на каждую вещь
+@Component
+@RequiredArgsConstructor
+public class ItemEnricher {
+
+    // размер пачки при потоковой выдаче
+    static final int CHUNK = 256;
+
+    private final BookingRepository bookings;
+    private final CommentRepository comments;
+    private final Clock clock;
+
+    public ItemDto enrich(Item item, Long viewerId) {
+        return enrich(List.of(item), viewerId).get(0);
+    }
+
+    // lastBooking/nextBooking видит только владелец вещи
+    public List<ItemDto> enrich(List<Item> items, Long viewerId) {
+        List<ItemDto> dtos = items.stream().map(ItemMapper::toDto).collect(Collectors.toList());
+        if (dtos.isEmpty()) {
+            return dtos;
+        }
+        Map<Long, List<Comment>> byItem = comments.findByItemIds(items.stream().map(Item::getId).toList());
+        for (ItemDto dto : dtos) {
+            dto.setComments(byItem.getOrDefault(dto.getId(), List.of()).stream()
+                    .map(CommentMapper::toDto)
+                    .collect(Collectors.toList()));
+        }
+
+        List<Long> owned = items.stream()
+                .filter(i -> i.getOwnerId().equals(viewerId))
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        if (owned.isEmpty()) {
+            return dtos;
+        }
+
+        Map<Long, NearestBookings> nearest = bookings.findNearestApproved(owned, LocalDateTime.now(clock));
+        for (ItemDto dto : dtos) {
+            NearestBookings nb = nearest.get(dto.getId());
+            if (nb != null) {
+                dto.setLastBooking(BookingMapper.toShortDto(nb.getLast()));
+                dto.setNextBooking(BookingMapper.toShortDto(nb.getNext()));
+            }
+        }
+        return dtos;
+    }
+
+    // карточка с ETag: отзывы и ближайшие брони читаются один раз, и из них же считаются и тег, и тело.
+    // Тег — версия вещи, число отзывов (отзывы только добавляются) и, для владельца, id последней
+    // и следующей брони; DTO собирается лениво, только если клиенту нужно тело
+    public Tagged<ItemDto> tagged(Item item, Long viewerId) {
+        List<Comment> itemComments = comments.findByItemIds(List.of(item.getId())).getOrDefault(item.getId(), List.of());
+        if (!item.getOwnerId().equals(viewerId)) {
+            return new Tagged<>(ETags.of(item.getVersion(), itemComments.size()),
+                    () -> toDto(item, itemComments, null));
+        }
+        NearestBookings nb = bookings.findNearestApproved(List.of(item.getId()), LocalDateTime.now(clock)).get(item.getId());
+        return new Tagged<>(ETags.of(item.getVersion(), itemComments.size(),
+                nb != null ? idOrZero(nb.getLast()) : 0, nb != null ? idOrZero(nb.getNext()) : 0),
+                () -> toDto(item, itemComments, nb));
+    }
+
+    private static ItemDto toDto(Item item, List<Comment> itemComments, NearestBookings nb) {
+        ItemDto dto = ItemMapper.toDto(item);
+        dto.setComments(itemComments.stream().map(CommentMapper::toDto).collect(Collectors.toList()));
+        if (nb != null) {
+            dto.setLastBooking(BookingMapper.toShortDto(nb.getLast()));
+            dto.setNextBooking(BookingMapper.toShortDto(nb.getNext()));
+        }
+        return dto;
+    }
+
+    private static long idOrZero(Booking booking) {
+        return booking != null ? booking.getId() : 0;
+    }
+
+    // ленивый вариант: вещи дополняются пачками по CHUNK по мере чтения потока
+    public Stream<ItemDto> enrich(Stream<Item> items, Long viewerId) {
+        Iterator<Item> it = items.iterator();
+        Iterator<List<ItemDto>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public List<ItemDto> next() {
+                List<Item> chunk = new ArrayList<>(CHUNK);
+                while (it.hasNext() && chunk.size() < CHUNK) {
+                    chunk.add(it.next());
+                }
+                return enrich(chunk, viewerId);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(items::close);
+    }
+}
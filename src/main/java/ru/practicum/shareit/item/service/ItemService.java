@@ -1,19 +1,53 @@
 package ru.practicum.shareit.item.service;
 
 
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.Tagged;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+// Где ответу не нужны брони и отзывы, отдаётся модель Item: в JSON её пишет ItemJsonSerializer в форме ItemDto
 public interface ItemService {
 
-    ItemDto create(Long ownerId, ItemDto dto);
+    Item create(Long ownerId, ItemDto dto);
 
-    ItemDto update(Long ownerId, Long itemId, ItemDto patch);
+    // владелец проверяется один раз на весь пакет; корректные элементы сохраняются вместе
+    List<BatchResult<Item>> createBatch(Long ownerId, List<ItemDto> dtos);
 
-    ItemDto getById(Long itemId);
+    Item update(Long ownerId, Long itemId, ItemDto patch);
 
-    List<ItemDto> getByOwner(Long ownerId);
+    // expectedVersions из If-Match (null — без условия); если вещь уже другой версии, чем любая из них — PreconditionFailedException
+    Item update(Long ownerId, Long itemId, ItemDto patch, Set<Long> expectedVersions);
 
-    List<ItemDto> search(String text);
+    // патчи с id вещи применяются по одному, владелец проверяется один раз на весь пакет; id встречается
+    // в пакете один раз. Неудачный элемент получает ошибку в своём результате и не мешает остальным
+    List<BatchResult<Item>> updateBatch(Long ownerId, List<ItemDto> patches);
+
+    // userId может быть null; брони в карточке видит только владелец
+    ItemDto getById(Long userId, Long itemId);
+
+    // карточка getById(userId, itemId) вместе с ETag по одному снимку вещи; DTO собирается только при чтении тела
+    Tagged<ItemDto> getTagged(Long userId, Long itemId);
+
+    List<ItemDto> getByOwner(Long ownerId, PageParams page);
+
+    // ленивые варианты для потоковых ответов; поток нужно закрыть после чтения
+    Stream<ItemDto> streamByOwner(Long ownerId, PageParams page);
+
+    // оставить отзыв может только тот, чья подтверждённая бронь этой вещи уже закончилась
+    CommentDto addComment(Long userId, Long itemId, CommentDto dto);
+
+    // С хранилищем в памяти — по релевантности (ItemSearchIndex), затем остальные вещи с запросом-подстрокой
+    // по возрастанию id; страница только from/size, afterId отклоняется (ValidationException).
+    // В jdbc и offheap — поиск подстроки по возрастанию id, с курсором afterId и from/size
+    List<Item> search(String text, PageParams page);
+
+    // та же выдача и в том же порядке, что у search, но лениво
+    Stream<Item> streamSearch(String text, PageParams page);
 }
\ No newline at end of file
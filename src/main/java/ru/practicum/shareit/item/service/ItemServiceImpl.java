@@ -1,98 +1,316 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.Tagged;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
 import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentMapper;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "shareit.service", extraTags = {"area", "items"}, percentiles = {0.5, 0.99}, histogram = true)
 public class ItemServiceImpl implements ItemService {
 
     private final ItemRepository repo;
     private final UserRepository userRepo;
+    private final ItemRequestRepository requestRepo;
+    private final BookingRepository bookingRepo;
+    private final CommentRepository commentRepo;
+    private final ItemEnricher enricher;
+    private final ShareItMetrics metrics;
+    private final Clock clock;
+    // ранжированный индекс есть только у хранилища в памяти, иначе поиск выполняет репозиторий
+    private final Optional<ItemSearchIndex> searchIndex;
+
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
 
     @Override
-    public ItemDto create(Long ownerId, ItemDto dto) {
+    public Item create(Long ownerId, ItemDto dto) {
         userRepo.findById(ownerId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + ownerId));
         validateForCreate(dto);
+        requireRequest(dto.getRequestId());
 
-        Item toSave = ItemMapper.fromDto(dto);
-        toSave.setOwnerId(ownerId);
-        Item saved = repo.save(toSave);
-        return ItemMapper.toDto(saved);
+        Item saved = repo.save(ItemMapper.fromDto(dto).toBuilder().ownerId(ownerId).build());
+        requireOwnerAfterSave(ownerId, List.of(saved));
+        searchIndex.ifPresent(index -> index.put(saved));
+        return saved;
     }
 
     @Override
-    public ItemDto update(Long ownerId, Long itemId, ItemDto patch) {
+    public List<BatchResult<Item>> createBatch(Long ownerId, List<ItemDto> dtos) {
         userRepo.findById(ownerId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + ownerId));
+        BatchResult.checkSize(dtos);
 
-        Item existing = repo.findById(itemId)
-                .orElseThrow(() -> new NotFoundException("Вещь не найдена: " + itemId));
+        @SuppressWarnings("unchecked")
+        BatchResult<Item>[] results = new BatchResult[dtos.size()];
+        List<Integer> positions = new ArrayList<>(dtos.size());
+        List<Item> valid = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            try {
+                validateForCreate(dtos.get(i));
+                requireRequest(dtos.get(i).getRequestId());
+            } catch (ValidationException e) {
+                results[i] = BatchResult.failed(i, 400, e.getMessage());
+                continue;
+            } catch (NotFoundException e) {
+                results[i] = BatchResult.failed(i, 404, e.getMessage());
+                continue;
+            }
+            positions.add(i);
+            valid.add(ItemMapper.fromDto(dtos.get(i)).toBuilder().ownerId(ownerId).build());
+        }
 
-        if (!existing.getOwnerId().equals(ownerId)) {
-            throw new NotFoundException("Редактировать вещь может только её владелец");
+        List<Item> saved = repo.saveAll(valid);
+        requireOwnerAfterSave(ownerId, saved);
+        searchIndex.ifPresent(index -> saved.forEach(index::put));
+        for (int k = 0; k < saved.size(); k++) {
+            int i = positions.get(k);
+            results[i] = BatchResult.ok(i, saved.get(k));
         }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public Item update(Long ownerId, Long itemId, ItemDto patch) {
+        return update(ownerId, itemId, patch, null);
+    }
+
+    @Override
+    public Item update(Long ownerId, Long itemId, ItemDto patch, Set<Long> expectedVersions) {
+        userRepo.findById(ownerId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + ownerId));
+        return updateOwned(ownerId, itemId, patch, expectedVersions);
+    }
+
+    @Override
+    public List<BatchResult<Item>> updateBatch(Long ownerId, List<ItemDto> patches) {
+        userRepo.findById(ownerId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + ownerId));
+        BatchResult.checkSize(patches);
 
-        if (patch != null) {
-            if (patch.getName() != null) {
-                if (!StringUtils.hasText(patch.getName())) {
-                    throw new ValidationException("Название вещи не должно быть пустым");
+        List<BatchResult<Item>> results = new ArrayList<>(patches.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < patches.size(); i++) {
+            ItemDto patch = patches.get(i);
+            if (patch == null || patch.getId() == null) {
+                results.add(BatchResult.failed(i, 400, "Не указан id вещи"));
+            } else if (!seen.add(patch.getId())) {
+                results.add(BatchResult.failed(i, 400, "Вещь уже есть в пакете: " + patch.getId()));
+            } else {
+                try {
+                    results.add(BatchResult.ok(i, updateOwned(ownerId, patch.getId(), patch, null)));
+                } catch (ValidationException e) {
+                    results.add(BatchResult.failed(i, 400, e.getMessage()));
+                } catch (NotFoundException e) {
+                    results.add(BatchResult.failed(i, 404, e.getMessage()));
+                } catch (ConflictException e) {
+                    results.add(BatchResult.failed(i, 409, e.getMessage()));
                 }
-                existing.setName(patch.getName());
             }
-            if (patch.getDescription() != null) {
-                if (!StringUtils.hasText(patch.getDescription())) {
-                    throw new ValidationException("Описание вещи не должно быть пустым");
-                }
-                existing.setDescription(patch.getDescription());
+        }
+        return results;
+    }
+
+    private Item updateOwned(Long ownerId, Long itemId, ItemDto patch, Set<Long> expectedVersions) {
+        // патч применяется к свежему снимку; если его параллельно заменили, перечитываем и пробуем снова
+        for (int attempt = 1; ; attempt++) {
+            Item existing = repo.findById(itemId)
+                    .orElseThrow(() -> new NotFoundException("Вещь не найдена: " + itemId));
+
+            if (!existing.getOwnerId().equals(ownerId)) {
+                throw new NotFoundException("Редактировать вещь может только её владелец");
             }
-            if (patch.getAvailable() != null) {
-                existing.setAvailable(patch.getAvailable());
+            // с If-Match клиент правит конкретную версию, поэтому повторять на свежем снимке нельзя
+            if (expectedVersions != null && !expectedVersions.contains(existing.getVersion())) {
+                throw new PreconditionFailedException("Вещь уже изменена, текущая версия: " + existing.getVersion());
             }
-            if (patch.getRequestId() != null) {
-                existing.setRequestId(patch.getRequestId());
+
+            try {
+                Item updated = repo.update(applyPatch(existing, patch));
+                searchIndex.ifPresent(index -> index.put(updated));
+                return updated;
+            } catch (VersionConflictException e) {
+                if (expectedVersions != null) {
+                    throw new PreconditionFailedException("Вещь была изменена параллельно: " + itemId);
+                }
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
             }
         }
-
-        return ItemMapper.toDto(repo.update(existing));
     }
 
     @Override
-    public ItemDto getById(Long itemId) {
+    public ItemDto getById(Long userId, Long itemId) {
         return repo.findById(itemId)
-                .map(ItemMapper::toDto)
+                .map(item -> enricher.enrich(item, userId))
                 .orElseThrow(() -> new NotFoundException("Вещь не найдена: " + itemId));
     }
 
     @Override
-    public List<ItemDto> getByOwner(Long ownerId) {
+    public Tagged<ItemDto> getTagged(Long userId, Long itemId) {
+        Item item = repo.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Вещь не найдена: " + itemId));
+        return enricher.tagged(item, userId);
+    }
+
+    @Override
+    public List<ItemDto> getByOwner(Long ownerId, PageParams page) {
+        userRepo.findById(ownerId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + ownerId));
+        return enricher.enrich(repo.findByOwnerId(ownerId, page), ownerId);
+    }
+
+    @Override
+    public Stream<ItemDto> streamByOwner(Long ownerId, PageParams page) {
         userRepo.findById(ownerId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + ownerId));
-        return repo.findByOwnerId(ownerId).stream()
-                .map(ItemMapper::toDto)
-                .collect(Collectors.toList());
+        return enricher.enrich(repo.streamByOwnerId(ownerId, page), ownerId);
+    }
+
+    @Override
+    public CommentDto addComment(Long userId, Long itemId, CommentDto dto) {
+        User author = userRepo.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + userId));
+        repo.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Вещь не найдена: " + itemId));
+        if (dto == null || !StringUtils.hasText(dto.getText())) {
+            throw new ValidationException("Текст отзыва не должен быть пустым");
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        boolean rented = bookingRepo.findByBookerId(userId, BookingState.PAST, now).stream()
+                .anyMatch(b -> b.getItemId().equals(itemId) && b.getStatus() == BookingStatus.APPROVED);
+        if (!rented) {
+            throw new ValidationException("Отзыв можно оставить только после завершённой аренды вещи");
+        }
+
+        Comment saved = commentRepo.save(Comment.builder()
+                .text(dto.getText())
+                .itemId(itemId)
+                .authorId(userId)
+                .authorName(author.getName())
+                .created(now)
+                .build());
+        return CommentMapper.toDto(saved);
     }
 
     @Override
-    public List<ItemDto> search(String text) {
+    public List<Item> search(String text, PageParams page) {
+        requireCursorSupported(page);
         if (!StringUtils.hasText(text)) {
             return List.of();
         }
-        return repo.searchAvailableByText(text).stream()
-                .map(ItemMapper::toDto)
-                .collect(Collectors.toList());
+        List<Item> found = searchIndex
+                .map(index -> index.search(text, page.getFrom(), page.getSize(), this::findAvailable))
+                .orElseGet(() -> repo.searchAvailableByText(text, page));
+        metrics.searchResults(found.size());
+        return found;
+    }
+
+    @Override
+    public Stream<Item> streamSearch(String text, PageParams page) {
+        requireCursorSupported(page);
+        if (!StringUtils.hasText(text)) {
+            return Stream.empty();
+        }
+        return searchIndex
+                .map(index -> index.stream(text, page.getFrom(), page.getSize(), this::findAvailable))
+                .orElseGet(() -> repo.streamAvailableByText(text, page));
+    }
+
+    // курсор есть только у выдачи по возрастанию id (jdbc, offheap); ранжированная листается from/size
+    private void requireCursorSupported(PageParams page) {
+        if (page.getAfterId() != null && searchIndex.isPresent()) {
+            throw new ValidationException("Поиск по релевантности листается параметрами from и size, afterId не поддерживается");
+        }
+    }
+
+    // Владельца могли удалить между проверкой и сохранением, и его очистка (UserCleanup) уже прошла по индексу
+    // владельца: тогда новые вещи остались бы без хозяина, поэтому они удаляются здесь же.
+    // Если же владелец ещё есть, очистка после его удаления увидит эти вещи сама
+    private void requireOwnerAfterSave(Long ownerId, List<Item> saved) {
+        if (saved.isEmpty() || userRepo.findById(ownerId).isPresent()) {
+            return;
+        }
+        List<Long> ids = saved.stream().map(Item::getId).toList();
+        repo.deleteAll(ids);
+        searchIndex.ifPresent(index -> index.remove(ids));
+        throw new NotFoundException("Пользователь не найден: " + ownerId);
+    }
+
+    private Item findAvailable(long id) {
+        return repo.findById(id)
+                .filter(item -> Boolean.TRUE.equals(item.getAvailable()))
+                .orElse(null);
+    }
+
+    private Item applyPatch(Item existing, ItemDto patch) {
+        if (patch == null) {
+            return existing;
+        }
+        Item.ItemBuilder updated = existing.toBuilder();
+        if (patch.getName() != null) {
+            if (!StringUtils.hasText(patch.getName())) {
+                throw new ValidationException("Название вещи не должно быть пустым");
+            }
+            updated.name(patch.getName());
+        }
+        if (patch.getDescription() != null) {
+            if (!StringUtils.hasText(patch.getDescription())) {
+                throw new ValidationException("Описание вещи не должно быть пустым");
+            }
+            updated.description(patch.getDescription());
+        }
+        if (patch.getAvailable() != null) {
+            updated.available(patch.getAvailable());
+        }
+        if (patch.getRequestId() != null) {
+            requireRequest(patch.getRequestId());
+            updated.requestId(patch.getRequestId());
+        }
+        return updated.build();
+    }
+
+    private void requireRequest(Long requestId) {
+        if (requestId != null && requestRepo.findById(requestId).isEmpty()) {
+            throw new NotFoundException("Запрос не найден: " + requestId);
+        }
     }
 
     private void validateForCreate(ItemDto dto) {
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.item.model.Comment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface CommentRepository {
+
+    Comment save(Comment comment);
+
+    // отзывы по вещам страницы за один вызов, в порядке добавления; вещи без отзывов в ответ не попадают
+    Map<Long, List<Comment>> findByItemIds(Collection<Long> itemIds);
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+import ru.practicum.shareit.journal.Recoverable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Repository
+public class InMemoryCommentRepository implements CommentRepository, Recoverable<Comment> {
+
+    private final AtomicLong seq = new AtomicLong(0);
+
+    // itemId -> неизменяемый список отзывов; новый отзыв подменяет список целиком (copy-on-write),
+    // поэтому читатели без блокировок получают согласованные список и количество
+    private final Map<Long, List<Comment>> byItem = new ConcurrentHashMap<>();
+
+    // изменения пишутся в журнал, если он включён (shareit.journal.enabled)
+    private final Journal journal;
+
+    public InMemoryCommentRepository() {
+        this(Journal.NONE);
+    }
+
+    @Autowired
+    public InMemoryCommentRepository(ObjectProvider<Journal> journal) {
+        this(journal.getIfAvailable(() -> Journal.NONE));
+    }
+
+    public InMemoryCommentRepository(Journal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public Comment save(Comment comment) {
+        return journal.write(() -> comment.toBuilder().id(seq.incrementAndGet()).build(),
+                stored -> List.of(new JournalRecord.CommentPut(stored)),
+                this::put);
+    }
+
+    private void put(Comment stored) {
+        byItem.compute(stored.getItemId(), (k, comments) -> {
+            List<Comment> updated = new ArrayList<>(comments != null ? comments.size() + 1 : 1);
+            if (comments != null) {
+                updated.addAll(comments);
+            }
+            updated.add(stored);
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    @Override
+    public Map<Long, List<Comment>> findByItemIds(Collection<Long> itemIds) {
+        Map<Long, List<Comment>> result = new HashMap<>();
+        for (Long itemId : itemIds) {
+            List<Comment> comments = byItem.get(itemId);
+            if (comments != null) {
+                result.put(itemId, comments);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Comment> values() {
+        return byItem.values().stream().flatMap(List::stream).toList();
+    }
+
+    @Override
+    public long sequence() {
+        return seq.get();
+    }
+
+    // отзывы вещи идут в порядке добавления, то есть по id
+    @Override
+    public void restore(Collection<Comment> comments, long sequence) {
+        comments.stream().sorted(Comparator.comparing(Comment::getId)).forEach(this::put);
+        seq.accumulateAndGet(sequence, Math::max);
+    }
+}
@@ -1,60 +1,240 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
+import ru.practicum.shareit.cache.StorageCacheConfig;
+import ru.practicum.shareit.common.IdLocks;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.collections.ConcurrentLongObjectMap;
+import ru.practicum.shareit.common.collections.LongIdSet;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+import ru.practicum.shareit.journal.Recoverable;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
-public class InMemoryItemRepository implements ItemRepository {
+@Qualifier(StorageCacheConfig.BACKEND)
+@Profile("!jdbc & !offheap")
+public class InMemoryItemRepository implements ItemRepository, Recoverable<Item> {
 
-    private final Map<Long, Item> storage = new ConcurrentHashMap<>();
+    private final ConcurrentLongObjectMap<Item> storage = new ConcurrentLongObjectMap<>();
     private final AtomicLong seq = new AtomicLong(0);
+    private final ItemTextIndex textIndex = new ItemTextIndex();
+
+    // ownerId -> id его вещей по возрастанию
+    private final ConcurrentLongObjectMap<LongIdSet> ownerIndex = new ConcurrentLongObjectMap<>();
+
+    // requestId -> id вещей, созданных в ответ на запрос
+    private final ConcurrentLongObjectMap<LongIdSet> requestIndex = new ConcurrentLongObjectMap<>();
+
+    // изменения пишутся в журнал, если он включён (shareit.journal.enabled)
+    private final Journal journal;
+
+    // держит вещь от проверки версии до публикации, пока изменение пишется в журнал
+    private final IdLocks locks = new IdLocks(64);
+
+    public InMemoryItemRepository() {
+        this(Journal.NONE);
+    }
+
+    @Autowired
+    public InMemoryItemRepository(ObjectProvider<Journal> journal) {
+        this(journal.getIfAvailable(() -> Journal.NONE));
+    }
+
+    public InMemoryItemRepository(Journal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public Item save(Item item) {
-        long id = seq.incrementAndGet();
-        item.setId(id);
-        storage.put(id, item);
-        return item;
+        // новый id никто не видит до публикации, поэтому блокировка по id не нужна
+        return journal.write(() -> item.toBuilder().id(seq.incrementAndGet()).version(1).build(),
+                stored -> List.of(new JournalRecord.ItemPut(stored)),
+                stored -> storage.compute(stored.getId(), old -> index(old, stored)));
+    }
+
+    // id выделяются одним блоком; ошибок после выделения быть не может, поэтому пакет сохраняется целиком
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return journal.write(() -> {
+            long first = seq.getAndAdd(items.size()) + 1;
+            List<Item> saved = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                saved.add(items.get(i).toBuilder().id(first + i).version(1).build());
+            }
+            return saved;
+        }, saved -> saved.stream().<JournalRecord>map(JournalRecord.ItemPut::new).toList(),
+                saved -> saved.forEach(stored -> storage.compute(stored.getId(), old -> index(old, stored))));
     }
 
     @Override
     public Item update(Item item) {
-        storage.put(item.getId(), item);
-        return item;
+        Long id = item.getId();
+        if (!isStorable(id)) {
+            throw new NotFoundException("Вещь не найдена: " + id);
+        }
+        return locks.withLock(id, () -> journal.write(() -> {
+            Item old = storage.get(id);
+            if (old == null) {
+                throw new NotFoundException("Вещь не найдена: " + id);
+            }
+            if (old.getVersion() != item.getVersion()) {
+                throw new VersionConflictException("Вещь была изменена параллельно: " + id);
+            }
+            return item.withVersion(old.getVersion() + 1);
+        }, stored -> List.of(new JournalRecord.ItemPut(stored)),
+                stored -> storage.compute(id, old -> index(old, stored))));
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        locks.withLocks(ids, () -> journal.write(() -> ids.stream()
+                        .filter(InMemoryItemRepository::isStorable)
+                        .distinct()
+                        .filter(id -> storage.get(id) != null)
+                        .toList(),
+                removed -> removed.stream().<JournalRecord>map(JournalRecord.ItemDelete::new).toList(),
+                removed -> removed.forEach(id -> storage.computeIfPresent(id, old -> {
+                    unindex(old);
+                    return null;
+                }))));
     }
 
     @Override
     public Optional<Item> findById(Long id) {
-        return Optional.ofNullable(storage.get(id));
+        return isStorable(id) ? Optional.ofNullable(storage.get(id)) : Optional.empty();
     }
 
     @Override
-    public List<Item> findByOwnerId(Long ownerId) {
-        return storage.values().stream()
-                .filter(i -> Objects.equals(i.getOwnerId(), ownerId))
-                .sorted(Comparator.comparing(Item::getId))
+    public Map<Long, Item> findAllById(Collection<Long> ids) {
+        Map<Long, Item> found = new HashMap<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(v -> found.put(id, v));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Item> findByOwnerId(Long ownerId, PageParams page) {
+        return streamByOwnerId(ownerId, page).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Item> streamByOwnerId(Long ownerId, PageParams page) {
+        LongIdSet ids = isStorable(ownerId) ? ownerIndex.get(ownerId) : null;
+        if (ids == null) {
+            return Stream.empty();
+        }
+        return page.stream(ids, storage::get);
+    }
+
+    @Override
+    public List<Item> findByRequestIds(Collection<Long> requestIds) {
+        List<LongIdSet> sets = requestIds.stream()
+                .filter(InMemoryItemRepository::isStorable)
+                .map(requestIndex::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return LongIdSet.union(sets).stream()
+                .mapToObj(storage::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<Item> searchAvailableByText(String text) {
+    public List<Item> searchAvailableByText(String text, PageParams page) {
+        return streamAvailableByText(text, page).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Item> streamAvailableByText(String text, PageParams page) {
         if (!StringUtils.hasText(text)) {
-            return List.of();
+            return Stream.empty();
         }
-        final String q = text.toLowerCase();
+        // индекс уже возвращает id по возрастанию, сортировка не нужна
+        return textIndex.search(text, page, storage::get);
+    }
+
+    @Override
+    public Stream<Item> streamAvailable() {
+        return storage.values().stream().filter(i -> Boolean.TRUE.equals(i.getAvailable()));
+    }
+
+    @Override
+    public long count() {
+        return storage.size();
+    }
+
+    @Override
+    public Set<Long> findOwnerIds() {
         return storage.values().stream()
-                .filter(i -> Boolean.TRUE.equals(i.getAvailable()))
-                .filter(i ->
-                        (i.getName() != null && i.getName().toLowerCase().contains(q)) ||
-                                (i.getDescription() != null && i.getDescription().toLowerCase().contains(q))
-                )
-                .sorted(Comparator.comparing(Item::getId))
-                .collect(Collectors.toList());
+                .map(Item::getOwnerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<Item> values() {
+        return storage.values();
+    }
+
+    @Override
+    public long sequence() {
+        return seq.get();
+    }
+
+    @Override
+    public void restore(Collection<Item> items, long sequence) {
+        for (Item item : items) {
+            storage.compute(item.getId(), old -> index(old, item));
+        }
+        seq.accumulateAndGet(sequence, Math::max);
+    }
+
+    // выдаются только id >= 1, а ключ 0 в картах зарезервирован: остальные id заведомо отсутствуют
+    private static boolean isStorable(Long id) {
+        return id != null && id > 0;
+    }
+
+    // вызывается внутри storage.compute, поэтому изменения одной вещи применяются к индексам по очереди
+    private Item index(Item old, Item item) {
+        textIndex.put(item);
+
+        relink(ownerIndex, old != null ? old.getOwnerId() : null, item.getOwnerId(), item.getId());
+        relink(requestIndex, old != null ? old.getRequestId() : null, item.getRequestId(), item.getId());
+        return item;
+    }
+
+    // вызывается внутри storage.computeIfPresent при удалении вещи
+    private void unindex(Item item) {
+        textIndex.remove(item.getId());
+        relink(ownerIndex, item.getOwnerId(), null, item.getId());
+        relink(requestIndex, item.getRequestId(), null, item.getId());
+    }
+
+    // переносит id из набора по ключу previous в набор по ключу current;
+    // compute по ключу делает его единственным писателем набора, как того требует LongIdSet
+    private static void relink(ConcurrentLongObjectMap<LongIdSet> index, Long previous, Long current, long id) {
+        if (current != null) {
+            index.compute(current, ids -> (ids != null ? ids : LongIdSet.EMPTY).with(id));
+        }
+        if (previous != null && !previous.equals(current)) {
+            index.computeIfPresent(previous, ids -> {
+                LongIdSet rest = ids.without(id);
+                return rest.isEmpty() ? null : rest;
+            });
+        }
     }
 }
@@ -1,19 +1,51 @@
 package ru.practicum.shareit.item.storage;
 
+import ru.practicum.shareit.common.PageParams;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface ItemRepository {
 
     Item save(Item item);
 
+    // пакетная вставка; результаты в том же порядке, что и аргументы
+    List<Item> saveAll(List<Item> items);
+
+    // сохраняет снимок, только если его version равна текущей (иначе VersionConflictException);
+    // возвращает сохранённый снимок со следующей версией
     Item update(Item item);
 
     Optional<Item> findById(Long id);
 
-    List<Item> findByOwnerId(Long ownerId);
+    // вещи с указанными id за одно обращение к хранилищу; отсутствующие id в ответ не попадают
+    Map<Long, Item> findAllById(Collection<Long> ids);
+
+    // удаляет вещи вместе с их записями в индексах; отсутствующие id пропускаются
+    void deleteAll(Collection<Long> ids);
+
+    List<Item> findByOwnerId(Long ownerId, PageParams page);
+
+    // ленивые варианты для потоковой выдачи; поток нужно закрыть после чтения
+    Stream<Item> streamByOwnerId(Long ownerId, PageParams page);
+
+    // вещи, созданные в ответ на запросы (requestId из набора), по возрастанию id
+    List<Item> findByRequestIds(Collection<Long> requestIds);
+
+    List<Item> searchAvailableByText(String text, PageParams page);
+
+    Stream<Item> streamAvailableByText(String text, PageParams page);
+
+    // все доступные вещи в произвольном порядке — для построения поискового индекса; поток нужно закрыть
+    Stream<Item> streamAvailable();
+
+    long count();
 
-    List<Item> searchAvailableByText(String text);
+    // владельцы всех вещей — при старте по ним находятся вещи пользователей, чья очистка не завершилась
+    Set<Long> findOwnerIds();
 }
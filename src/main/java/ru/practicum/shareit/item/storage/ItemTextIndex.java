@@ -0,0 +1,147 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.collections.ConcurrentLongObjectMap;
+import ru.practicum.shareit.common.collections.LongIdSet;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.*;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+// Триграммный индекс по name/description доступных вещей. Через searchAvailableByText отвечает на поиск
+// подстроки: с ним ItemSearchIndex добирает выдачу вещами, которые не совпали со словами запроса целиком.
+// Триграмма кодируется в long (три символа по 16 бит и старший маркер, чтобы код не совпал с зарезервированным
+// ключом 0) и служит ключом ConcurrentLongObjectMap; постинги и список всех id — отсортированные LongIdSet:
+// 8 байт на вхождение вместо Long и узла ConcurrentSkipListSet, а пересечение идёт по массивам.
+// Изменения одной вещи должны вызываться последовательно (репозиторий делает это внутри compute по id).
+class ItemTextIndex {
+
+    private static final int GRAM = 3;
+    private static final long GRAM_MARKER = 1L << 48;
+
+    // текст хранится уже в нижнем регистре, чтобы не пересчитывать его на каждый запрос
+    private final ConcurrentLongObjectMap<Entry> entries = new ConcurrentLongObjectMap<>();
+
+    // id проиндексированных вещей по возрастанию — для коротких запросов, у которых нет триграмм.
+    // Вещи меняются параллельно, поэтому новая версия набора публикуется под orderedLock (у LongIdSet один писатель)
+    private volatile LongIdSet ordered = LongIdSet.EMPTY;
+    private final Object orderedLock = new Object();
+    private final ConcurrentLongObjectMap<LongIdSet> postings = new ConcurrentLongObjectMap<>();
+
+    void put(Item item) {
+        Long id = item.getId();
+        Entry old = entries.get(id);
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            if (old != null) {
+                unorder(id);
+                entries.remove(id);
+                unlinkAll(old.grams(), id);
+            }
+            return;
+        }
+
+        Entry fresh = Entry.of(item);
+        // сначала добавляем новые постинги, потом убираем устаревшие — вещь не пропадает из выдачи посреди обновления
+        for (long g : fresh.grams()) {
+            link(g, id);
+        }
+        entries.put(id, fresh);
+        if (old == null) {
+            synchronized (orderedLock) {
+                ordered = ordered.with(id);
+            }
+        }
+        if (old != null) {
+            for (long g : old.grams()) {
+                if (Arrays.binarySearch(fresh.grams(), g) < 0) {
+                    unlink(g, id);
+                }
+            }
+        }
+    }
+
+    void remove(Long id) {
+        Entry old = entries.remove(id);
+        if (old != null) {
+            unorder(id);
+            unlinkAll(old.grams(), id);
+        }
+    }
+
+    // доступные вещи (через loader), у которых name или description содержит запрос (без учёта регистра),
+    // по возрастанию id; перебор останавливается, как только набрана страница
+    <T> Stream<T> search(String text, PageParams page, LongFunction<T> loader) {
+        final String q = text.toLowerCase();
+        LongFunction<T> matching = id -> {
+            Entry e = entries.get(id);
+            return e != null && e.matches(q) ? loader.apply(id) : null;
+        };
+        if (q.length() < GRAM) {
+            return page.stream(ordered, matching);
+        }
+
+        List<LongIdSet> lists = new ArrayList<>();
+        for (long g : grams(q)) {
+            LongIdSet ids = postings.get(g);
+            if (ids == null) {
+                return Stream.empty();
+            }
+            lists.add(ids);
+        }
+        // совпадение всех триграмм ещё не означает совпадения подстроки — кандидат проверяется по тексту
+        return page.page(LongIdSet.intersect(lists, page.afterOrMin()), matching);
+    }
+
+    private void unorder(long id) {
+        synchronized (orderedLock) {
+            ordered = ordered.without(id);
+        }
+    }
+
+    private void link(long gram, long id) {
+        postings.compute(gram, ids -> (ids != null ? ids : LongIdSet.EMPTY).with(id));
+    }
+
+    private void unlink(long gram, long id) {
+        postings.computeIfPresent(gram, ids -> {
+            LongIdSet rest = ids.without(id);
+            return rest.isEmpty() ? null : rest;
+        });
+    }
+
+    private void unlinkAll(long[] grams, long id) {
+        for (long g : grams) {
+            unlink(g, id);
+        }
+    }
+
+    // отсортированные различные триграммы строк; null пропускаются
+    private static long[] grams(String... texts) {
+        int count = 0;
+        for (String s : texts) {
+            count += s != null ? Math.max(s.length() - GRAM + 1, 0) : 0;
+        }
+        long[] out = new long[count];
+        int n = 0;
+        for (String s : texts) {
+            for (int i = 0; s != null && i + GRAM <= s.length(); i++) {
+                out[n++] = GRAM_MARKER | (long) s.charAt(i) << 32 | (long) s.charAt(i + 1) << 16 | s.charAt(i + 2);
+            }
+        }
+        return LongIdSet.of(out).toArray();
+    }
+
+    private record Entry(String name, String description, long[] grams) {
+
+        static Entry of(Item item) {
+            String name = item.getName() != null ? item.getName().toLowerCase() : null;
+            String description = item.getDescription() != null ? item.getDescription().toLowerCase() : null;
+            return new Entry(name, description, ItemTextIndex.grams(name, description));
+        }
+
+        boolean matches(String q) {
+            return (name != null && name.contains(q)) || (description != null && description.contains(q));
+        }
+    }
+}
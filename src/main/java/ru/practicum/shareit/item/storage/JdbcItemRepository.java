@@ -0,0 +1,212 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import ru.practicum.shareit.cache.StorageCacheConfig;
+import ru.practicum.shareit.common.JdbcStreams;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Хранилище вещей в БД (профиль jdbc). Порядок выдачи и постраничность те же, что у in-memory:
+// по возрастанию id, курсор afterId и смещение from переводятся в WHERE id > ... LIMIT/OFFSET.
+// Потоковые выборки читаются курсором порциями (JdbcStreams)
+@Repository
+@Qualifier(StorageCacheConfig.BACKEND)
+@Profile("jdbc")
+@RequiredArgsConstructor
+public class JdbcItemRepository implements ItemRepository {
+
+    private static final String COLUMNS = "id, name, description, available, owner_id, request_id, version";
+
+    private static final String INSERT = "INSERT INTO items (name, description, available, owner_id, request_id, version) "
+            + "VALUES (:name, :description, :available, :ownerId, :requestId, 1)";
+
+    private static final RowMapper<Item> MAPPER = (rs, rowNum) -> Item.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .description(rs.getString("description"))
+            .available(rs.getBoolean("available"))
+            .ownerId(rs.getLong("owner_id"))
+            .requestId(rs.getObject("request_id", Long.class))
+            .version(rs.getLong("version"))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final JdbcStreams streams;
+
+    @Override
+    public Item save(Item item) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.update(INSERT, params(item), keys, new String[]{"id"});
+        return item.toBuilder().id(keys.getKey().longValue()).version(1).build();
+    }
+
+    // одна пачка INSERT вместо отдельного запроса на каждую вещь
+    @Override
+    @Transactional
+    public List<Item> saveAll(List<Item> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        SqlParameterSource[] batch = items.stream().map(JdbcItemRepository::params).toArray(SqlParameterSource[]::new);
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(INSERT, batch, keys, new String[]{"id"});
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<Item> saved = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            // запрошен только столбец id; H2 и PostgreSQL пишут его имя в разном регистре
+            long id = ((Number) generated.get(i).values().iterator().next()).longValue();
+            saved.add(items.get(i).toBuilder().id(id).version(1).build());
+        }
+        return saved;
+    }
+
+    @Override
+    public Item update(Item item) {
+        int updated = jdbc.update("UPDATE items SET name = :name, description = :description, available = :available, "
+                        + "owner_id = :ownerId, request_id = :requestId, version = version + 1 "
+                        + "WHERE id = :id AND version = :version",
+                params(item).addValue("id", item.getId()).addValue("version", item.getVersion()));
+        if (updated == 0) {
+            if (findById(item.getId()).isEmpty()) {
+                throw new NotFoundException("Вещь не найдена: " + item.getId());
+            }
+            throw new VersionConflictException("Вещь была изменена параллельно: " + item.getId());
+        }
+        return item.withVersion(item.getVersion() + 1);
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            jdbc.update("DELETE FROM items WHERE id IN (:ids)", Map.of("ids", ids));
+        }
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM items WHERE id = :id", Map.of("id", id), MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Map<Long, Item> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return jdbc.query("SELECT " + COLUMNS + " FROM items WHERE id IN (:ids)", Map.of("ids", ids), MAPPER)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+    }
+
+    @Override
+    public List<Item> findByOwnerId(Long ownerId, PageParams page) {
+        return jdbc.query(byOwnerSql(), byOwnerParams(ownerId, page), MAPPER);
+    }
+
+    @Override
+    public Stream<Item> streamByOwnerId(Long ownerId, PageParams page) {
+        return streams.query(byOwnerSql(), byOwnerParams(ownerId, page), MAPPER);
+    }
+
+    @Override
+    public List<Item> findByRequestIds(Collection<Long> requestIds) {
+        if (requestIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query("SELECT " + COLUMNS + " FROM items WHERE request_id IN (:ids) ORDER BY id",
+                Map.of("ids", requestIds), MAPPER);
+    }
+
+    @Override
+    public List<Item> searchAvailableByText(String text, PageParams page) {
+        if (!StringUtils.hasText(text)) {
+            return List.of();
+        }
+        return jdbc.query(searchSql(), searchParams(text, page), MAPPER);
+    }
+
+    @Override
+    public Stream<Item> streamAvailableByText(String text, PageParams page) {
+        if (!StringUtils.hasText(text)) {
+            return Stream.empty();
+        }
+        return streams.query(searchSql(), searchParams(text, page), MAPPER);
+    }
+
+    @Override
+    public Stream<Item> streamAvailable() {
+        return streams.query("SELECT " + COLUMNS + " FROM items WHERE available", new MapSqlParameterSource(), MAPPER);
+    }
+
+    @Override
+    public long count() {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM items", Map.of(), Long.class);
+        return count != null ? count : 0;
+    }
+
+    // DISTINCT проходит по индексу idx_items_owner
+    @Override
+    public Set<Long> findOwnerIds() {
+        return new HashSet<>(jdbc.queryForList("SELECT DISTINCT owner_id FROM items", Map.of(), Long.class));
+    }
+
+    private static String byOwnerSql() {
+        return "SELECT " + COLUMNS + " FROM items WHERE owner_id = :ownerId AND id > :afterId "
+                + "ORDER BY id LIMIT :size OFFSET :from";
+    }
+
+    // lower(...) LIKE совпадает с выражениями trigram-индексов из schema-postgresql.sql
+    private static String searchSql() {
+        return "SELECT " + COLUMNS + " FROM items WHERE available AND id > :afterId "
+                + "AND (lower(name) LIKE :pattern ESCAPE '\\' OR lower(description) LIKE :pattern ESCAPE '\\') "
+                + "ORDER BY id LIMIT :size OFFSET :from";
+    }
+
+    private static MapSqlParameterSource byOwnerParams(Long ownerId, PageParams page) {
+        return page(page).addValue("ownerId", ownerId);
+    }
+
+    private static MapSqlParameterSource searchParams(String text, PageParams page) {
+        return page(page).addValue("pattern", "%" + escapeLike(text.toLowerCase()) + "%");
+    }
+
+    private static MapSqlParameterSource page(PageParams page) {
+        return new MapSqlParameterSource()
+                .addValue("afterId", page.getAfterId() != null ? page.getAfterId() : Long.MIN_VALUE)
+                .addValue("size", page.getSize())
+                .addValue("from", page.getFrom());
+    }
+
+    private static MapSqlParameterSource params(Item item) {
+        return new MapSqlParameterSource()
+                .addValue("name", item.getName())
+                .addValue("description", item.getDescription())
+                .addValue("available", item.getAvailable())
+                .addValue("ownerId", item.getOwnerId())
+                .addValue("requestId", item.getRequestId());
+    }
+
+    // запрос ищется как подстрока, поэтому символы шаблона LIKE экранируются
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
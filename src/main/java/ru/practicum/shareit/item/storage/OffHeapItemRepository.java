@@ -0,0 +1,509 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import ru.practicum.shareit.common.IdLocks;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.collections.LongIdSet;
+import ru.practicum.shareit.common.collections.LongLongHashMap;
+import ru.practicum.shareit.common.collections.LongObjectHashMap;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+import ru.practicum.shareit.journal.Recoverable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static ru.practicum.shareit.common.collections.LongLongHashMap.MISSING;
+
+// Хранилище вещей вне кучи (профиль offheap). Записи лежат в прямых ByteBuffer блоками по chunkSize,
+// индекс id -> адрес записи — LongLongHashMap, объекты Item создаются только при выдаче.
+// На вещь приходится 41 байт заголовка записи плюс текст в UTF-8 и ~21 байт индекса — против ~150 байт
+// объектов и узлов ConcurrentHashMap в InMemoryItemRepository, и сборщику мусора почти нечего обходить.
+// Изменение дописывает новую запись, старая становится мусором; когда мусор превышает половину записанного,
+// живые записи переписываются в новые блоки, а старые освобождаются вместе со своими ByteBuffer.
+// Поиск по тексту — просмотр записей по возрастанию id без отдельного индекса.
+// Прямая память ограничена -XX:MaxDirectMemorySize (по умолчанию равна -Xmx)
+@Slf4j
+public class OffHeapItemRepository implements ItemRepository, Recoverable<Item> {
+
+    // запись: id, version, ownerId, requestId, флаги, [int длина, UTF-8] name, [int длина, UTF-8] description;
+    // длина -1 означает null
+    private static final int ID = 0;
+    private static final int VERSION = 8;
+    private static final int OWNER = 16;
+    private static final int REQUEST = 24;
+    private static final int FLAGS = 32;
+    private static final int NAME = 33;
+    private static final int HEADER = NAME + 4 + 4;
+
+    private static final int HAS_AVAILABLE = 1;
+    private static final int AVAILABLE = 2;
+    private static final int HAS_OWNER = 4;
+    private static final int HAS_REQUEST = 8;
+
+    // столько id просматривается поиском под одним захватом блокировки
+    private static final int SCAN_BATCH = 256;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int tail;
+    private long allocated;
+    private long written;
+    private long garbage;
+
+    private final LongLongHashMap index = new LongLongHashMap(1024);
+    private final AtomicLong seq = new AtomicLong(0);
+
+    // ownerId / requestId -> id вещей; полученную под блокировкой версию LongIdSet читатели обходят уже без неё
+    private final LongObjectHashMap<LongIdSet> ownerIndex = new LongObjectHashMap<>(1024);
+    private final LongObjectHashMap<LongIdSet> requestIndex = new LongObjectHashMap<>(1024);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Journal journal;
+
+    // держит вещь от проверки версии до публикации, пока изменение пишется в журнал
+    private final IdLocks locks = new IdLocks(64);
+
+    public OffHeapItemRepository() {
+        this(Journal.NONE, 16 << 20);
+    }
+
+    public OffHeapItemRepository(Journal journal, int chunkSize) {
+        if (chunkSize < HEADER) {
+            throw new IllegalArgumentException("Размер блока слишком мал: " + chunkSize);
+        }
+        this.journal = journal;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Item save(Item item) {
+        return journal.write(() -> item.toBuilder().id(seq.incrementAndGet()).version(1).build(),
+                stored -> List.of(new JournalRecord.ItemPut(stored)),
+                stored -> locked(lock.writeLock(), () -> put(stored)));
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return journal.write(() -> {
+            long first = seq.getAndAdd(items.size()) + 1;
+            List<Item> saved = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                saved.add(items.get(i).toBuilder().id(first + i).version(1).build());
+            }
+            return saved;
+        }, saved -> saved.stream().<JournalRecord>map(JournalRecord.ItemPut::new).toList(),
+                saved -> locked(lock.writeLock(), () -> saved.forEach(this::put)));
+    }
+
+    // версия проверяется под блокировкой чтения, запись в блоки — под блокировкой записи после fsync;
+    // между ними вещь держит IdLocks
+    @Override
+    public Item update(Item item) {
+        Long id = item.getId();
+        if (!isStorable(id)) {
+            throw new NotFoundException("Вещь не найдена: " + id);
+        }
+        return locks.withLock(id, () -> journal.write(() -> locked(lock.readLock(), () -> {
+            long address = index.get(id);
+            if (address == MISSING) {
+                throw new NotFoundException("Вещь не найдена: " + id);
+            }
+            long version = chunk(address).getLong(offset(address) + VERSION);
+            if (version != item.getVersion()) {
+                throw new VersionConflictException("Вещь была изменена параллельно: " + id);
+            }
+            return item.withVersion(version + 1);
+        }), stored -> List.of(new JournalRecord.ItemPut(stored)),
+                stored -> locked(lock.writeLock(), () -> {
+                    put(stored);
+                    compactIfWasteful();
+                })));
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        locks.withLocks(ids, () -> journal.write(() -> locked(lock.readLock(), () -> ids.stream()
+                        .filter(OffHeapItemRepository::isStorable)
+                        .distinct()
+                        .filter(id -> index.get(id) != MISSING)
+                        .toList()),
+                removed -> removed.stream().<JournalRecord>map(JournalRecord.ItemDelete::new).toList(),
+                removed -> locked(lock.writeLock(), () -> {
+                    for (Long id : removed) {
+                        long address = index.remove(id);
+                        relink(ownerIndex, owner(address), null, id);
+                        relink(requestIndex, request(address), null, id);
+                        garbage += size(address);
+                    }
+                    compactIfWasteful();
+                })));
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return isStorable(id) ? Optional.ofNullable(load(id)) : Optional.empty();
+    }
+
+    @Override
+    public Map<Long, Item> findAllById(Collection<Long> ids) {
+        Map<Long, Item> found = new HashMap<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(v -> found.put(id, v));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Item> findByOwnerId(Long ownerId, PageParams page) {
+        return streamByOwnerId(ownerId, page).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Item> streamByOwnerId(Long ownerId, PageParams page) {
+        if (!isStorable(ownerId)) {
+            return Stream.empty();
+        }
+        LongIdSet ids = locked(lock.readLock(), () -> ownerIndex.get(ownerId));
+        if (ids == null) {
+            return Stream.empty();
+        }
+        return page.stream(ids, this::load);
+    }
+
+    @Override
+    public List<Item> findByRequestIds(Collection<Long> requestIds) {
+        LongIdSet ids = locked(lock.readLock(), () -> LongIdSet.union(requestIds.stream()
+                .filter(OffHeapItemRepository::isStorable)
+                .map(requestIndex::get)
+                .filter(Objects::nonNull)
+                .toList()));
+        return ids.stream()
+                .mapToObj(this::load)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Item> searchAvailableByText(String text, PageParams page) {
+        return streamAvailableByText(text, page).collect(Collectors.toList());
+    }
+
+    // просмотр идёт пачками по SCAN_BATCH id и останавливается, как только набрана страница
+    @Override
+    public Stream<Item> streamAvailableByText(String text, PageParams page) {
+        if (!StringUtils.hasText(text)) {
+            return Stream.empty();
+        }
+        String q = text.toLowerCase();
+        long last = seq.get();
+        long first = page.getAfterId() != null ? page.getAfterId() + 1 : 1;
+        if (first > last || first < 1) {
+            return Stream.empty();
+        }
+        return LongStream.iterate(first, from -> from <= last, from -> from + SCAN_BATCH)
+                .mapToObj(from -> scan(from, Math.min(from + SCAN_BATCH - 1, last), q))
+                .flatMap(List::stream)
+                .skip(page.getFrom())
+                .limit(page.getSize());
+    }
+
+    @Override
+    public Stream<Item> streamAvailable() {
+        return values().stream().filter(i -> Boolean.TRUE.equals(i.getAvailable()));
+    }
+
+    @Override
+    public long count() {
+        return locked(lock.readLock(), index::size);
+    }
+
+    @Override
+    public Set<Long> findOwnerIds() {
+        return values().stream()
+                .map(Item::getOwnerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<Item> values() {
+        return locked(lock.readLock(), () -> {
+            List<Item> items = new ArrayList<>(index.size());
+            index.forEach((id, address) -> items.add(read(address)));
+            return items;
+        });
+    }
+
+    @Override
+    public long sequence() {
+        return seq.get();
+    }
+
+    @Override
+    public void restore(Collection<Item> items, long sequence) {
+        locked(lock.writeLock(), () -> items.forEach(this::put));
+        seq.accumulateAndGet(sequence, Math::max);
+    }
+
+    // прямая память под блоками, байт
+    public long allocatedBytes() {
+        return locked(lock.readLock(), () -> allocated);
+    }
+
+    // живые записи в блоках, байт
+    public long liveBytes() {
+        return locked(lock.readLock(), () -> written - garbage);
+    }
+
+    // индекс id -> адрес в куче, байт
+    public long indexBytes() {
+        return locked(lock.readLock(), index::footprint);
+    }
+
+    // выдаются только id >= 1, а ключ 0 в индексах зарезервирован: остальные id заведомо отсутствуют
+    private static boolean isStorable(Long id) {
+        return id != null && id > 0;
+    }
+
+    // дописывает запись и переводит на неё индексы; вызывается под блокировкой записи
+    private void put(Item item) {
+        long id = item.getId();
+        long address = append(item);
+        long previous = index.put(id, address);
+        Long previousOwner = null;
+        Long previousRequest = null;
+        if (previous != MISSING) {
+            previousOwner = owner(previous);
+            previousRequest = request(previous);
+            garbage += size(previous);
+        }
+        relink(ownerIndex, previousOwner, item.getOwnerId(), id);
+        relink(requestIndex, previousRequest, item.getRequestId(), id);
+    }
+
+    private Item load(long id) {
+        return locked(lock.readLock(), () -> {
+            long address = index.get(id);
+            return address != MISSING ? read(address) : null;
+        });
+    }
+
+    private List<Item> scan(long from, long to, String q) {
+        return locked(lock.readLock(), () -> {
+            List<Item> found = new ArrayList<>();
+            for (long id = from; id <= to; id++) {
+                long address = index.get(id);
+                if (address != MISSING && matches(address, q)) {
+                    found.add(read(address));
+                }
+            }
+            return found;
+        });
+    }
+
+    private boolean matches(long address, String q) {
+        ByteBuffer chunk = chunk(address);
+        int at = offset(address);
+        if ((chunk.get(at + FLAGS) & AVAILABLE) == 0) {
+            return false;
+        }
+        String name = string(chunk, at + NAME);
+        if (name != null && name.toLowerCase().contains(q)) {
+            return true;
+        }
+        String description = string(chunk, descriptionAt(chunk, at));
+        return description != null && description.toLowerCase().contains(q);
+    }
+
+    private Item read(long address) {
+        ByteBuffer chunk = chunk(address);
+        int at = offset(address);
+        int flags = chunk.get(at + FLAGS);
+        return Item.builder()
+                .id(chunk.getLong(at + ID))
+                .version(chunk.getLong(at + VERSION))
+                .name(string(chunk, at + NAME))
+                .description(string(chunk, descriptionAt(chunk, at)))
+                .available((flags & HAS_AVAILABLE) != 0 ? (flags & AVAILABLE) != 0 : null)
+                .ownerId((flags & HAS_OWNER) != 0 ? chunk.getLong(at + OWNER) : null)
+                .requestId((flags & HAS_REQUEST) != 0 ? chunk.getLong(at + REQUEST) : null)
+                .build();
+    }
+
+    private long append(Item item) {
+        byte[] name = bytes(item.getName());
+        byte[] description = bytes(item.getDescription());
+        int size = HEADER + length(name) + length(description);
+        ByteBuffer chunk = reserve(size);
+        int at = tail;
+        int flags = 0;
+        if (item.getAvailable() != null) {
+            flags |= item.getAvailable() ? HAS_AVAILABLE | AVAILABLE : HAS_AVAILABLE;
+        }
+        if (item.getOwnerId() != null) {
+            flags |= HAS_OWNER;
+        }
+        if (item.getRequestId() != null) {
+            flags |= HAS_REQUEST;
+        }
+        chunk.putLong(at + ID, item.getId())
+                .putLong(at + VERSION, item.getVersion())
+                .putLong(at + OWNER, item.getOwnerId() != null ? item.getOwnerId() : 0)
+                .putLong(at + REQUEST, item.getRequestId() != null ? item.getRequestId() : 0)
+                .put(at + FLAGS, (byte) flags);
+        int next = putString(chunk, at + NAME, name);
+        putString(chunk, next, description);
+        tail += size;
+        written += size;
+        return (long) (chunks.size() - 1) << 32 | at;
+    }
+
+    // место под запись в последнем блоке; запись крупнее блока получает отдельный блок своего размера
+    private ByteBuffer reserve(int size) {
+        ByteBuffer last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (last != null && last.capacity() - tail >= size) {
+            return last;
+        }
+        ByteBuffer chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, size));
+        chunks.add(chunk);
+        allocated += chunk.capacity();
+        tail = 0;
+        return chunk;
+    }
+
+    // уплотнение переписывает живые записи подряд в новые блоки; вызывается под блокировкой записи
+    private void compactIfWasteful() {
+        if (garbage < chunkSize || garbage * 2 < written) {
+            return;
+        }
+        long before = allocated;
+        List<ByteBuffer> old = new ArrayList<>(chunks);
+        chunks.clear();
+        tail = 0;
+        allocated = 0;
+        written = 0;
+        garbage = 0;
+        index.replaceValues((id, address) -> {
+            ByteBuffer source = old.get((int) (address >>> 32));
+            int at = offset(address);
+            int size = size(source, at);
+            ByteBuffer target = reserve(size);
+            target.put(tail, source, at, size);
+            long moved = (long) (chunks.size() - 1) << 32 | tail;
+            tail += size;
+            written += size;
+            return moved;
+        });
+        log.info("Хранилище вещей вне кучи уплотнено: {} КБ -> {} КБ", before >> 10, allocated >> 10);
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private Long owner(long address) {
+        ByteBuffer chunk = chunk(address);
+        int at = offset(address);
+        return (chunk.get(at + FLAGS) & HAS_OWNER) != 0 ? chunk.getLong(at + OWNER) : null;
+    }
+
+    private Long request(long address) {
+        ByteBuffer chunk = chunk(address);
+        int at = offset(address);
+        return (chunk.get(at + FLAGS) & HAS_REQUEST) != 0 ? chunk.getLong(at + REQUEST) : null;
+    }
+
+    private int size(long address) {
+        return size(chunk(address), offset(address));
+    }
+
+    private static int size(ByteBuffer chunk, int at) {
+        int description = descriptionAt(chunk, at);
+        return description - at + 4 + Math.max(chunk.getInt(description), 0);
+    }
+
+    private static int descriptionAt(ByteBuffer chunk, int at) {
+        return at + NAME + 4 + Math.max(chunk.getInt(at + NAME), 0);
+    }
+
+    private static byte[] bytes(String s) {
+        return s != null ? s.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    // возвращает позицию сразу за строкой
+    private static int putString(ByteBuffer chunk, int at, byte[] bytes) {
+        if (bytes == null) {
+            chunk.putInt(at, -1);
+            return at + 4;
+        }
+        chunk.putInt(at, bytes.length).put(at + 4, bytes);
+        return at + 4 + bytes.length;
+    }
+
+    private static String string(ByteBuffer chunk, int at) {
+        int length = chunk.getInt(at);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // вызывается под блокировкой записи, поэтому у каждого LongIdSet один писатель
+    private static void relink(LongObjectHashMap<LongIdSet> index, Long previous, Long current, long id) {
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (current != null) {
+            LongIdSet ids = index.get(current);
+            index.put(current, (ids != null ? ids : LongIdSet.EMPTY).with(id));
+        }
+        if (previous != null) {
+            LongIdSet ids = index.get(previous);
+            if (ids != null) {
+                LongIdSet rest = ids.without(id);
+                index.put(previous, rest.isEmpty() ? null : rest);
+            }
+        }
+    }
+
+    private static <T> T locked(Lock lock, Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void locked(Lock lock, Runnable action) {
+        locked(lock, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
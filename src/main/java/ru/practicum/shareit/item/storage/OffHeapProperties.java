@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+// shareit.items.offheap.*: хранилище вещей вне кучи (профиль offheap)
+@ConfigurationProperties("shareit.items.offheap")
+public record OffHeapProperties(
+        @DefaultValue("16MB") DataSize chunkSize) {
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.practicum.shareit.cache.StorageCacheConfig;
+import ru.practicum.shareit.journal.Journal;
+
+import java.util.function.ToDoubleFunction;
+
+// Профиль offheap: вещи хранятся вне кучи (OffHeapItemRepository) вместо InMemoryItemRepository;
+// пользователи, брони и журнал — как обычно. С профилем jdbc не сочетается.
+// Метрики: shareit.items.offheap.bytes{state=allocated|live|index} — прямая память под блоками,
+// живые записи в ней и индекс id в куче
+@Configuration
+@Profile("offheap & !jdbc")
+@EnableConfigurationProperties(OffHeapProperties.class)
+public class OffHeapStorageConfig {
+
+    @Bean
+    @Qualifier(StorageCacheConfig.BACKEND)
+    public OffHeapItemRepository offHeapItemRepository(ObjectProvider<Journal> journal,
+                                                       OffHeapProperties props,
+                                                       MeterRegistry registry) {
+        OffHeapItemRepository repo = new OffHeapItemRepository(journal.getIfAvailable(() -> Journal.NONE),
+                Math.toIntExact(props.chunkSize().toBytes()));
+        gauge(registry, repo, "allocated", OffHeapItemRepository::allocatedBytes);
+        gauge(registry, repo, "live", OffHeapItemRepository::liveBytes);
+        gauge(registry, repo, "index", OffHeapItemRepository::indexBytes);
+        return repo;
+    }
+
+    private static void gauge(MeterRegistry registry, OffHeapItemRepository repo, String state,
+                              ToDoubleFunction<OffHeapItemRepository> value) {
+        Gauge.builder("shareit.items.offheap.bytes", repo, value)
+                .tag("state", state)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,299 @@
+package ru.practicum.shareit.journal;
+
+import ru.practicum.shareit.exceptions.StorageUnavailableException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Журнал в файлах wal-<N>.log каталога dir; при каждом запуске открывается новый сегмент.
+// Групповая фиксация: изменения встают в очередь, и первый из ожидающих потоков пишет всю очередь
+// одной операцией write + force, остальные в это время ждут и получают подтверждение тем же fsync.
+// Снимок (rotate) берёт эксклюзивную блокировку: изменения приостанавливаются, очередь дописывается
+// в старый сегмент, открывается следующий — всё, что лежит в старых сегментах, попадает в снимок.
+// Изменение попадает в память только после fsync своего кадра, поэтому читатели не видят того, что
+// потеряется при падении. После первой ошибки записи журнал закрыт для изменений: и упавшие кадры,
+// и все последующие отклоняются, не дойдя до памяти
+public class FileJournal implements Journal, Closeable {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path dir;
+
+    // изменения идут под разделяемой блокировкой, снимок — под эксклюзивной
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition flushed = queueLock.newCondition();
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long enqueued;
+    private long durable;
+    private boolean flushing;
+    private IOException failure;
+    private long syncs;
+
+    private FileChannel channel;
+    private long segment;
+
+    public FileJournal(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        long last = Math.max(
+                files(SEGMENT_PREFIX, SEGMENT_SUFFIX).keySet().stream().mapToLong(Long::longValue).max().orElse(0),
+                files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).keySet().stream().mapToLong(Long::longValue).max().orElse(0));
+        this.segment = last + 1;
+        this.channel = open(segment);
+    }
+
+    // publish выполняется под той же разделяемой блокировкой, что и запись: снимок не увидит изменение,
+    // которое уже в журнале, но ещё не в памяти
+    @Override
+    public <T> T write(Supplier<T> prepare, Function<? super T, List<JournalRecord>> records,
+                       Consumer<? super T> publish, Consumer<? super T> discard) {
+        snapshotLock.readLock().lock();
+        try {
+            requireWritable();
+            T result = prepare.get();
+            List<JournalRecord> written = records.apply(result);
+            if (!written.isEmpty()) {
+                try {
+                    awaitDurable(enqueue(JournalCodec.frame(written)));
+                } catch (RuntimeException e) {
+                    discard.accept(result);
+                    throw e;
+                }
+            }
+            publish.accept(result);
+            return result;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // capture вызывается с номером нового сегмента, пока изменения приостановлены
+    public <T> T rotate(LongFunction<T> capture) throws IOException {
+        snapshotLock.writeLock().lock();
+        try {
+            queueLock.lock();
+            try {
+                flushAll();
+                channel.close();
+                segment++;
+                channel = open(segment);
+            } finally {
+                queueLock.unlock();
+            }
+            return capture.apply(segment);
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    // последний снимок: номер сегмента, с которого начинается непокрытая им часть журнала, и путь
+    public Optional<Map.Entry<Long, Path>> latestSnapshot() throws IOException {
+        return Optional.ofNullable(files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).lastEntry());
+    }
+
+    public Path snapshotPath(long segment) {
+        return dir.resolve(name(SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX));
+    }
+
+    // проигрывает сегменты начиная с from; недописанный хвост сегмента пропускается
+    public void replay(long from, Consumer<JournalRecord> consumer) throws IOException {
+        for (Path path : files(SEGMENT_PREFIX, SEGMENT_SUFFIX).tailMap(from).values()) {
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                List<JournalRecord> records;
+                while ((records = JournalCodec.readFrame(buf)) != null) {
+                    records.forEach(consumer);
+                }
+            }
+        }
+    }
+
+    // удаляет сегменты и снимки, целиком покрытые снимком segment
+    public void purgeBefore(long segment) throws IOException {
+        for (Path path : files(SEGMENT_PREFIX, SEGMENT_SUFFIX).headMap(segment).values()) {
+            Files.deleteIfExists(path);
+        }
+        for (Path path : files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(segment).values()) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    public long syncs() {
+        queueLock.lock();
+        try {
+            return syncs;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // число кадров на диске; вместе с syncs показывает, сколько изменений приходится на один fsync
+    public long frames() {
+        queueLock.lock();
+        try {
+            return durable;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotLock.writeLock().lock();
+        queueLock.lock();
+        try {
+            flushAll();
+            channel.close();
+        } finally {
+            queueLock.unlock();
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    private void requireWritable() {
+        queueLock.lock();
+        try {
+            if (failure != null) {
+                throw unavailable();
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // кадр мог встать в очередь, пока ведущий поток писал упавшую пачку
+    private long enqueue(ByteBuffer frame) {
+        queueLock.lock();
+        try {
+            if (failure != null) {
+                throw unavailable();
+            }
+            pending.add(frame);
+            return ++enqueued;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void awaitDurable(long ticket) {
+        queueLock.lock();
+        try {
+            while (durable < ticket) {
+                if (failure != null) {
+                    throw unavailable();
+                }
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                // этот поток становится ведущим и пишет всё, что накопилось, включая чужие записи
+                List<ByteBuffer> batch = pending;
+                pending = new ArrayList<>();
+                long upTo = enqueued;
+                FileChannel target = channel;
+                flushing = true;
+                queueLock.unlock();
+                IOException error = null;
+                try {
+                    writeAndForce(target, batch);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    queueLock.lock();
+                    flushing = false;
+                    if (error == null) {
+                        durable = upTo;
+                        syncs++;
+                    } else {
+                        failure = error;
+                    }
+                    flushed.signalAll();
+                }
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // вызывается под queueLock
+    private StorageUnavailableException unavailable() {
+        return new StorageUnavailableException("Хранилище доступно только для чтения: ошибка записи журнала", failure);
+    }
+
+    // вызывается под queueLock, когда новые изменения не поступают
+    private void flushAll() throws IOException {
+        while (flushing) {
+            flushed.awaitUninterruptibly();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (!pending.isEmpty()) {
+            writeAndForce(channel, pending);
+            pending = new ArrayList<>();
+            durable = enqueued;
+            syncs++;
+            flushed.signalAll();
+        }
+    }
+
+    private void writeAndForce(FileChannel target, List<ByteBuffer> batch) throws IOException {
+        ByteBuffer[] buffers = batch.toArray(ByteBuffer[]::new);
+        long remaining = 0;
+        for (ByteBuffer buf : buffers) {
+            remaining += buf.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= target.write(buffers);
+        }
+        force(target);
+    }
+
+    // отдельный метод, чтобы тесты могли подменить fsync
+    void force(FileChannel target) throws IOException {
+        target.force(false);
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(dir.resolve(name(SEGMENT_PREFIX, number, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private NavigableMap<Long, Path> files(String prefix, String suffix) throws IOException {
+        NavigableMap<Long, Path> found = new TreeMap<>();
+        try (Stream<Path> list = Files.list(dir)) {
+            list.forEach(path -> {
+                String file = path.getFileName().toString();
+                if (file.startsWith(prefix) && file.endsWith(suffix)) {
+                    found.put(Long.parseLong(file.substring(prefix.length(), file.length() - suffix.length())), path);
+                }
+            });
+        }
+        return found;
+    }
+
+    // номер с ведущими нулями, чтобы файлы сортировались и по имени
+    private static String name(String prefix, long number, String suffix) {
+        return String.format("%s%020d%s", prefix, number, suffix);
+    }
+}
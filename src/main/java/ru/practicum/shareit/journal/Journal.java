@@ -0,0 +1,33 @@
+package ru.practicum.shareit.journal;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Журнал изменений in-memory хранилищ. Хранилище выполняет изменение через write в три шага:
+// prepare проверяет его и строит новое состояние, не меняя видимых данных; records описывает результат;
+// publish применяет его к памяти — только после того, как записи на диске. Если записать не удалось,
+// вместо publish вызывается discard (снять то, что prepare успел зарезервировать), а write бросает исключение.
+// Изменения одной сущности между prepare и publish хранилище упорядочивает само (IdLocks)
+public interface Journal {
+
+    Journal NONE = new Journal() {
+        @Override
+        public <T> T write(Supplier<T> prepare, Function<? super T, List<JournalRecord>> records,
+                           Consumer<? super T> publish, Consumer<? super T> discard) {
+            T result = prepare.get();
+            publish.accept(result);
+            return result;
+        }
+    };
+
+    <T> T write(Supplier<T> prepare, Function<? super T, List<JournalRecord>> records,
+                Consumer<? super T> publish, Consumer<? super T> discard);
+
+    default <T> T write(Supplier<T> prepare, Function<? super T, List<JournalRecord>> records,
+                        Consumer<? super T> publish) {
+        return write(prepare, records, publish, result -> {
+        });
+    }
+}
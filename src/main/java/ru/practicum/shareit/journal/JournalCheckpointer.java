@@ -0,0 +1,170 @@
+package ru.practicum.shareit.journal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Восстановление хранилищ при старте и периодические снимки.
+// Восстановление: последний снимок + все сегменты журнала после него. Записи об одной сущности могли лечь
+// в журнал не в порядке изменений, поэтому из put берётся старшая версия, а удалённый id больше не оживает
+// (id не переиспользуются). Счётчик id запросов не опускается ниже старшего requestId у вещей: иначе новый
+// запрос получил бы id запроса, которого нет в журнале (например, записанного до журналирования запросов),
+// и вместе с ним чужие ответы
+@Slf4j
+@RequiredArgsConstructor
+public class JournalCheckpointer {
+
+    private final FileJournal journal;
+    private final Recoverable<Item> items;
+    private final Recoverable<User> users;
+    private final Recoverable<ItemRequest> requests;
+    private final Recoverable<Booking> bookings;
+    private final Recoverable<Comment> comments;
+    private final Duration interval;
+
+    private ScheduledExecutorService scheduler;
+
+    public void start() throws IOException {
+        long started = System.nanoTime();
+        Optional<Map.Entry<Long, Path>> latest = journal.latestSnapshot();
+        Snapshot snapshot = latest.isPresent()
+                ? Snapshot.read(latest.get().getValue(), latest.get().getKey())
+                : new Snapshot(0, 0, List.of(), 0, List.of(), 0, List.of(), 0, List.of(), 0, List.of());
+
+        Map<Long, Item> itemState = new HashMap<>();
+        snapshot.items().forEach(item -> itemState.put(item.getId(), item));
+        Map<Long, User> userState = new HashMap<>();
+        snapshot.users().forEach(user -> userState.put(user.getId(), user));
+        Map<Long, ItemRequest> requestState = new HashMap<>();
+        snapshot.requests().forEach(request -> requestState.put(request.getId(), request));
+        Map<Long, Booking> bookingState = new HashMap<>();
+        snapshot.bookings().forEach(booking -> bookingState.put(booking.getId(), booking));
+        Map<Long, Comment> commentState = new HashMap<>();
+        snapshot.comments().forEach(comment -> commentState.put(comment.getId(), comment));
+        Set<Long> deletedItems = new HashSet<>();
+        Set<Long> deletedUsers = new HashSet<>();
+        long[] maxIds = {snapshot.itemSeq(), snapshot.userSeq(), snapshot.requestSeq(),
+                snapshot.bookingSeq(), snapshot.commentSeq()};
+        long[] replayed = {0};
+
+        journal.replay(snapshot.segment(), record -> {
+            replayed[0]++;
+            switch (record) {
+                case JournalRecord.ItemPut put -> {
+                    if (!deletedItems.contains(put.id())) {
+                        itemState.merge(put.id(), put.item(), JournalCheckpointer::newerItem);
+                    }
+                    maxIds[0] = Math.max(maxIds[0], put.id());
+                }
+                case JournalRecord.ItemDelete delete -> {
+                    deletedItems.add(delete.id());
+                    itemState.remove(delete.id());
+                    maxIds[0] = Math.max(maxIds[0], delete.id());
+                }
+                case JournalRecord.UserPut put -> {
+                    if (!deletedUsers.contains(put.id())) {
+                        userState.merge(put.id(), put.user(), JournalCheckpointer::newerUser);
+                    }
+                    maxIds[1] = Math.max(maxIds[1], put.id());
+                }
+                case JournalRecord.UserDelete delete -> {
+                    deletedUsers.add(delete.id());
+                    userState.remove(delete.id());
+                    maxIds[1] = Math.max(maxIds[1], delete.id());
+                }
+                case JournalRecord.RequestPut put -> {
+                    requestState.put(put.id(), put.request());
+                    maxIds[2] = Math.max(maxIds[2], put.id());
+                }
+                case JournalRecord.BookingPut put -> {
+                    bookingState.merge(put.id(), put.booking(), JournalCheckpointer::newerBooking);
+                    maxIds[3] = Math.max(maxIds[3], put.id());
+                }
+                case JournalRecord.CommentPut put -> {
+                    commentState.put(put.id(), put.comment());
+                    maxIds[4] = Math.max(maxIds[4], put.id());
+                }
+            }
+        });
+        for (Item item : itemState.values()) {
+            if (item.getRequestId() != null) {
+                maxIds[2] = Math.max(maxIds[2], item.getRequestId());
+            }
+        }
+
+        items.restore(itemState.values(), maxIds[0]);
+        users.restore(userState.values(), maxIds[1]);
+        requests.restore(requestState.values(), maxIds[2]);
+        bookings.restore(bookingState.values(), maxIds[3]);
+        comments.restore(commentState.values(), maxIds[4]);
+        log.info("Хранилища восстановлены за {} мс: вещей {}, пользователей {}, запросов {}, броней {}, отзывов {}, "
+                        + "записей журнала после снимка {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), itemState.size(), userState.size(),
+                requestState.size(), bookingState.size(), commentState.size(), replayed[0]);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // после проигрывания журнала снимок снимается сразу, чтобы следующий старт не проигрывал его заново
+        long initialDelay = replayed[0] > 0 ? 0 : interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkpointQuietly, initialDelay, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    // состояние копируется, пока изменения приостановлены (ссылки на неизменяемые объекты, без сериализации),
+    // запись файла идёт уже параллельно с новыми изменениями
+    public synchronized void checkpoint() throws IOException {
+        long started = System.nanoTime();
+        Snapshot snapshot = journal.rotate(segment -> new Snapshot(segment,
+                items.sequence(), items.values(), users.sequence(), users.values(),
+                requests.sequence(), requests.values(), bookings.sequence(), bookings.values(),
+                comments.sequence(), comments.values()));
+        snapshot.write(journal.snapshotPath(snapshot.segment()));
+        journal.purgeBefore(snapshot.segment());
+        log.info("Снимок {} записан за {} мс: вещей {}, пользователей {}, запросов {}, броней {}, отзывов {}",
+                snapshot.segment(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), snapshot.items().size(),
+                snapshot.users().size(), snapshot.requests().size(), snapshot.bookings().size(),
+                snapshot.comments().size());
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            // следующая попытка будет по расписанию; до тех пор данные остаются в журнале
+            log.error("Не удалось записать снимок", e);
+        }
+    }
+
+    private static Item newerItem(Item current, Item candidate) {
+        return candidate.getVersion() > current.getVersion() ? candidate : current;
+    }
+
+    private static User newerUser(User current, User candidate) {
+        return candidate.getVersion() > current.getVersion() ? candidate : current;
+    }
+
+    private static Booking newerBooking(Booking current, Booking candidate) {
+        return candidate.getVersion() > current.getVersion() ? candidate : current;
+    }
+}
@@ -0,0 +1,300 @@
+package ru.practicum.shareit.journal;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Двоичный формат журнала и снимков.
+// Кадр журнала: [int длина тела][int CRC32C тела][тело: int число записей, записи].
+// Все записи одного изменения (например, пакетного сохранения) лежат в одном кадре и восстанавливаются вместе;
+// недописанный при падении кадр не проходит проверку длины или CRC и отбрасывается
+final class JournalCodec {
+
+    static final int FRAME_HEADER = 8;
+
+    private static final byte ITEM_PUT = 1;
+    private static final byte USER_PUT = 2;
+    private static final byte USER_DELETE = 3;
+    private static final byte ITEM_DELETE = 4;
+    private static final byte REQUEST_PUT = 5;
+    private static final byte BOOKING_PUT = 6;
+    private static final byte COMMENT_PUT = 7;
+
+    private JournalCodec() {
+    }
+
+    static ByteBuffer frame(List<JournalRecord> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(FRAME_HEADER + 64 * records.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(0);
+            out.writeInt(records.size());
+            for (JournalRecord record : records) {
+                writeRecord(out, record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] buf = bytes.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(buf, FRAME_HEADER, buf.length - FRAME_HEADER);
+        return ByteBuffer.wrap(buf)
+                .putInt(0, buf.length - FRAME_HEADER)
+                .putInt(4, (int) crc.getValue());
+    }
+
+    // читает кадр с текущей позиции; null, если кадр недописан или повреждён
+    static List<JournalRecord> readFrame(ByteBuffer in) {
+        if (in.remaining() < FRAME_HEADER) {
+            return null;
+        }
+        int length = in.getInt(in.position());
+        int checksum = in.getInt(in.position() + 4);
+        if (length < 4 || length > in.remaining() - FRAME_HEADER) {
+            return null;
+        }
+        ByteBuffer body = in.slice(in.position() + FRAME_HEADER, length);
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        int count = body.getInt();
+        List<JournalRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(readRecord(body));
+        }
+        in.position(in.position() + FRAME_HEADER + length);
+        return records;
+    }
+
+    private static void writeRecord(DataOutput out, JournalRecord record) throws IOException {
+        switch (record) {
+            case JournalRecord.ItemPut put -> {
+                out.writeByte(ITEM_PUT);
+                writeItem(out, put.item());
+            }
+            case JournalRecord.ItemDelete delete -> {
+                out.writeByte(ITEM_DELETE);
+                out.writeLong(delete.id());
+            }
+            case JournalRecord.UserPut put -> {
+                out.writeByte(USER_PUT);
+                writeUser(out, put.user());
+            }
+            case JournalRecord.UserDelete delete -> {
+                out.writeByte(USER_DELETE);
+                out.writeLong(delete.id());
+            }
+            case JournalRecord.RequestPut put -> {
+                out.writeByte(REQUEST_PUT);
+                writeRequest(out, put.request());
+            }
+            case JournalRecord.BookingPut put -> {
+                out.writeByte(BOOKING_PUT);
+                writeBooking(out, put.booking());
+            }
+            case JournalRecord.CommentPut put -> {
+                out.writeByte(COMMENT_PUT);
+                writeComment(out, put.comment());
+            }
+        }
+    }
+
+    private static JournalRecord readRecord(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case ITEM_PUT -> new JournalRecord.ItemPut(readItem(in));
+            case USER_PUT -> new JournalRecord.UserPut(readUser(in));
+            case USER_DELETE -> new JournalRecord.UserDelete(in.getLong());
+            case ITEM_DELETE -> new JournalRecord.ItemDelete(in.getLong());
+            case REQUEST_PUT -> new JournalRecord.RequestPut(readRequest(in));
+            case BOOKING_PUT -> new JournalRecord.BookingPut(readBooking(in));
+            case COMMENT_PUT -> new JournalRecord.CommentPut(readComment(in));
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала: " + type);
+        };
+    }
+
+    static void writeItem(DataOutput out, Item item) throws IOException {
+        out.writeLong(item.getId());
+        out.writeLong(item.getVersion());
+        writeString(out, item.getName());
+        writeString(out, item.getDescription());
+        out.writeByte(item.getAvailable() == null ? -1 : item.getAvailable() ? 1 : 0);
+        writeNullableLong(out, item.getOwnerId());
+        writeNullableLong(out, item.getRequestId());
+    }
+
+    static Item readItem(ByteBuffer in) {
+        long id = in.getLong();
+        long version = in.getLong();
+        String name = readString(in);
+        String description = readString(in);
+        byte available = in.get();
+        return Item.builder()
+                .id(id)
+                .version(version)
+                .name(name)
+                .description(description)
+                .available(available < 0 ? null : available == 1)
+                .ownerId(readNullableLong(in))
+                .requestId(readNullableLong(in))
+                .build();
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getId());
+        out.writeLong(user.getVersion());
+        writeString(out, user.getName());
+        writeString(out, user.getEmail());
+    }
+
+    static User readUser(ByteBuffer in) {
+        long id = in.getLong();
+        long version = in.getLong();
+        return User.builder()
+                .id(id)
+                .version(version)
+                .name(readString(in))
+                .email(readString(in))
+                .build();
+    }
+
+    static void writeRequest(DataOutput out, ItemRequest request) throws IOException {
+        out.writeLong(request.getId());
+        writeString(out, request.getDescription());
+        writeNullableLong(out, request.getRequesterId());
+        writeTime(out, request.getCreated());
+    }
+
+    static ItemRequest readRequest(ByteBuffer in) {
+        long id = in.getLong();
+        String description = readString(in);
+        Long requesterId = readNullableLong(in);
+        return ItemRequest.builder()
+                .id(id)
+                .description(description)
+                .requesterId(requesterId)
+                .created(readTime(in))
+                .build();
+    }
+
+    // статус пишется именем, а не порядковым номером, чтобы журнал пережил перестановку констант
+    static void writeBooking(DataOutput out, Booking booking) throws IOException {
+        out.writeLong(booking.getId());
+        out.writeLong(booking.getVersion());
+        writeTime(out, booking.getStart());
+        writeTime(out, booking.getEnd());
+        writeNullableLong(out, booking.getItemId());
+        writeNullableLong(out, booking.getBookerId());
+        writeNullableLong(out, booking.getOwnerId());
+        writeString(out, booking.getStatus() != null ? booking.getStatus().name() : null);
+    }
+
+    static Booking readBooking(ByteBuffer in) {
+        long id = in.getLong();
+        long version = in.getLong();
+        LocalDateTime start = readTime(in);
+        LocalDateTime end = readTime(in);
+        Long itemId = readNullableLong(in);
+        Long bookerId = readNullableLong(in);
+        Long ownerId = readNullableLong(in);
+        String status = readString(in);
+        return Booking.builder()
+                .id(id)
+                .version(version)
+                .start(start)
+                .end(end)
+                .itemId(itemId)
+                .bookerId(bookerId)
+                .ownerId(ownerId)
+                .status(status != null ? BookingStatus.valueOf(status) : null)
+                .build();
+    }
+
+    static void writeComment(DataOutput out, Comment comment) throws IOException {
+        out.writeLong(comment.getId());
+        writeString(out, comment.getText());
+        writeNullableLong(out, comment.getItemId());
+        writeNullableLong(out, comment.getAuthorId());
+        writeString(out, comment.getAuthorName());
+        writeTime(out, comment.getCreated());
+    }
+
+    static Comment readComment(ByteBuffer in) {
+        long id = in.getLong();
+        String text = readString(in);
+        Long itemId = readNullableLong(in);
+        Long authorId = readNullableLong(in);
+        String authorName = readString(in);
+        return Comment.builder()
+                .id(id)
+                .text(text)
+                .itemId(itemId)
+                .authorId(authorId)
+                .authorName(authorName)
+                .created(readTime(in))
+                .build();
+    }
+
+    // длина -1 означает null; writeUTF не подходит из-за ограничения в 64 КБ
+    private static void writeString(DataOutput out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // секунды и наносекунды без часового пояса, как LocalDateTime
+    private static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(ByteBuffer in) {
+        return in.get() != 0 ? LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC) : null;
+    }
+
+    private static void writeNullableLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(ByteBuffer in) {
+        return in.get() != 0 ? in.getLong() : null;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.journal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+
+// При shareit.journal.enabled=true in-memory (в том числе off-heap) хранилища вещей, пользователей, запросов, броней
+// и отзывов пишут изменения в журнал в shareit.journal.dir и восстанавливаются из него при старте; в профиле jdbc не нужен.
+// Метрики: shareit.journal.frames и shareit.journal.syncs — их отношение показывает эффект групповой фиксации
+@Configuration
+@Profile("!jdbc")
+@EnableConfigurationProperties(JournalProperties.class)
+@ConditionalOnProperty(name = "shareit.journal.enabled", havingValue = "true")
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public FileJournal fileJournal(JournalProperties props, MeterRegistry registry) throws IOException {
+        FileJournal journal = new FileJournal(props.dir());
+        FunctionCounter.builder("shareit.journal.frames", journal, FileJournal::frames)
+                .description("Изменения, записанные в журнал")
+                .register(registry);
+        FunctionCounter.builder("shareit.journal.syncs", journal, FileJournal::syncs)
+                .description("Вызовы fsync журнала")
+                .register(registry);
+        return journal;
+    }
+
+    // создаётся при подъёме контекста, то есть до старта веб-сервера: запросы приходят в уже восстановленные хранилища
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public JournalCheckpointer journalCheckpointer(FileJournal journal,
+                                                   Recoverable<Item> items,
+                                                   Recoverable<User> users,
+                                                   Recoverable<ItemRequest> requests,
+                                                   Recoverable<Booking> bookings,
+                                                   Recoverable<Comment> comments,
+                                                   JournalProperties props) {
+        return new JournalCheckpointer(journal, items, users, requests, bookings, comments,
+                props.snapshotInterval());
+    }
+
+    // при spring.main.lazy-initialization=true восстановление иначе отложилось бы до первого обращения к бину
+    @Bean
+    static LazyInitializationExcludeFilter eagerJournalRecovery() {
+        return LazyInitializationExcludeFilter.forBeanTypes(JournalCheckpointer.class);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.journal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// shareit.journal.*: журнал и снимки in-memory хранилищ вещей и пользователей
+@ConfigurationProperties("shareit.journal")
+public record JournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/journal") Path dir,
+        @DefaultValue("10m") Duration snapshotInterval) {
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.journal;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+// Запись журнала. Put несёт состояние сущности целиком вместе с версией, поэтому при восстановлении
+// из нескольких записей об одной сущности побеждает старшая версия, а порядок записей не важен
+public sealed interface JournalRecord {
+
+    long id();
+
+    record ItemPut(Item item) implements JournalRecord {
+        @Override
+        public long id() {
+            return item.getId();
+        }
+    }
+
+    record ItemDelete(long id) implements JournalRecord {
+    }
+
+    record UserPut(User user) implements JournalRecord {
+        @Override
+        public long id() {
+            return user.getId();
+        }
+    }
+
+    record UserDelete(long id) implements JournalRecord {
+    }
+
+    // запросы не меняются и не удаляются, поэтому запись о запросе одна
+    record RequestPut(ItemRequest request) implements JournalRecord {
+        @Override
+        public long id() {
+            return request.getId();
+        }
+    }
+
+    // брони не удаляются: отмена и решение владельца — новая версия с другим статусом
+    record BookingPut(Booking booking) implements JournalRecord {
+        @Override
+        public long id() {
+            return booking.getId();
+        }
+    }
+
+    // отзывы только добавляются
+    record CommentPut(Comment comment) implements JournalRecord {
+        @Override
+        public long id() {
+            return comment.getId();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.journal;
+
+import java.util.Collection;
+import java.util.List;
+
+// Хранилище, состояние которого журнал сохраняет в снимок и восстанавливает при старте
+public interface Recoverable<T> {
+
+    // для снимка журнала; вызывается, пока изменения приостановлены
+    List<T> values();
+
+    long sequence();
+
+    // загрузка восстановленного из журнала состояния при старте, до приёма запросов
+    void restore(Collection<T> values, long sequence);
+}
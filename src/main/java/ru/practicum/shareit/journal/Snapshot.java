@@ -0,0 +1,137 @@
+package ru.practicum.shareit.journal;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+// Снимок хранилищ, покрывающий все сегменты журнала до segment.
+// Формат: [int MAGIC][int FORMAT][long itemSeq][int n][n вещей][long userSeq][int m][m пользователей]
+// [long requestSeq][int k][k запросов][long bookingSeq][int b][b броней][long commentSeq][int c][c отзывов][int CRC32C];
+// в снимках формата 2 нет броней и отзывов, в снимках формата 1 — ещё и запросов.
+// Пишется во временный файл и атомарно переименовывается, поэтому на диске снимок либо целый, либо его нет
+public record Snapshot(long segment, long itemSeq, List<Item> items, long userSeq, List<User> users,
+                       long requestSeq, List<ItemRequest> requests, long bookingSeq, List<Booking> bookings,
+                       long commentSeq, List<Comment> comments) {
+
+    private static final int MAGIC = 0x53485253;
+    private static final int FORMAT = 3;
+    private static final int FORMAT_WITHOUT_BOOKINGS = 2;
+    private static final int FORMAT_WITHOUT_REQUESTS = 1;
+    private static final int HEADER = 4 + 4 + 8 + 4 + 8 + 4 + 4;
+
+    public void write(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(itemSeq);
+            out.writeInt(items.size());
+            for (Item item : items) {
+                JournalCodec.writeItem(out, item);
+            }
+            out.writeLong(userSeq);
+            out.writeInt(users.size());
+            for (User user : users) {
+                JournalCodec.writeUser(out, user);
+            }
+            out.writeLong(requestSeq);
+            out.writeInt(requests.size());
+            for (ItemRequest request : requests) {
+                JournalCodec.writeRequest(out, request);
+            }
+            out.writeLong(bookingSeq);
+            out.writeInt(bookings.size());
+            for (Booking booking : bookings) {
+                JournalCodec.writeBooking(out, booking);
+            }
+            out.writeLong(commentSeq);
+            out.writeInt(comments.size());
+            for (Comment comment : comments) {
+                JournalCodec.writeComment(out, comment);
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // файл отображается в память целиком и разбирается прямо из отображения, без промежуточного буфера
+    public static Snapshot read(Path path, long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                throw new IOException("Повреждённый снимок: " + path);
+            }
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32C crc = new CRC32C();
+            crc.update(in.slice(0, in.limit() - 4));
+            if (in.getInt() != MAGIC || (int) crc.getValue() != in.getInt(in.limit() - 4)) {
+                throw new IOException("Повреждённый снимок: " + path);
+            }
+            int format = in.getInt();
+            if (format != FORMAT && format != FORMAT_WITHOUT_BOOKINGS && format != FORMAT_WITHOUT_REQUESTS) {
+                throw new IOException("Неизвестный формат снимка " + format + ": " + path);
+            }
+            long itemSeq = in.getLong();
+            int itemCount = in.getInt();
+            List<Item> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                items.add(JournalCodec.readItem(in));
+            }
+            long userSeq = in.getLong();
+            int userCount = in.getInt();
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                users.add(JournalCodec.readUser(in));
+            }
+            long requestSeq = 0;
+            List<ItemRequest> requests = new ArrayList<>();
+            if (format >= FORMAT_WITHOUT_BOOKINGS) {
+                requestSeq = in.getLong();
+                int requestCount = in.getInt();
+                for (int i = 0; i < requestCount; i++) {
+                    requests.add(JournalCodec.readRequest(in));
+                }
+            }
+            long bookingSeq = 0;
+            List<Booking> bookings = new ArrayList<>();
+            long commentSeq = 0;
+            List<Comment> comments = new ArrayList<>();
+            if (format == FORMAT) {
+                bookingSeq = in.getLong();
+                int bookingCount = in.getInt();
+                for (int i = 0; i < bookingCount; i++) {
+                    bookings.add(JournalCodec.readBooking(in));
+                }
+                commentSeq = in.getLong();
+                int commentCount = in.getInt();
+                for (int i = 0; i < commentCount; i++) {
+                    comments.add(JournalCodec.readComment(in));
+                }
+            }
+            return new Snapshot(segment, itemSeq, items, userSeq, users, requestSeq, requests,
+                    bookingSeq, bookings, commentSeq, comments);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+@Configuration
+public class MetricsConfig {
+
+    // включает @Timed на сервисах: таймер на каждый метод с тегами class/method
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // при ленивой инициализации гауги должны появиться сразу, а не после первого запроса к хранилищу
+    @Bean
+    static LazyInitializationExcludeFilter eagerMeterBinders() {
+        return LazyInitializationExcludeFilter.forBeanTypes(MeterBinder.class);
+    }
+
+    @Bean
+    public MeterBinder storageSizeMetrics(ItemRepository items, UserRepository users) {
+        return registry -> {
+            Gauge.builder("shareit.storage.size", items, ItemRepository::count)
+                    .tag("entity", "items")
+                    .description("Количество вещей в хранилище")
+                    .register(registry);
+            Gauge.builder("shareit.storage.size", users, UserRepository::count)
+                    .tag("entity", "users")
+                    .description("Количество пользователей в хранилище")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Метрики, которые нельзя снять аннотацией @Timed: размеры выдачи поиска, счётчики ошибок
+// и ход фоновой очистки данных удалённых пользователей
+@Component
+public class ShareItMetrics {
+
+    private final DistributionSummary searchResults;
+    private final Counter conflicts;
+    private final Counter notFound;
+    private final AtomicInteger cleanupsPending = new AtomicInteger();
+    private final Counter cleanupItems;
+    private final Counter cleanupBookings;
+    private final Timer cleanupDuration;
+
+    public ShareItMetrics(MeterRegistry registry) {
+        this.searchResults = DistributionSummary.builder("shareit.items.search.results")
+                .description("Количество вещей в ответе поиска")
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(10_000.0)
+                .register(registry);
+        this.conflicts = Counter.builder("shareit.errors")
+                .tag("type", "conflict")
+                .register(registry);
+        this.notFound = Counter.builder("shareit.errors")
+                .tag("type", "not_found")
+                .register(registry);
+        Gauge.builder("shareit.cleanup.pending", cleanupsPending, AtomicInteger::get)
+                .description("Удалённые пользователи, чьи данные ещё очищаются")
+                .register(registry);
+        this.cleanupItems = Counter.builder("shareit.cleanup.removed")
+                .tag("entity", "items")
+                .description("Вещи, удалённые вместе с их владельцем")
+                .register(registry);
+        this.cleanupBookings = Counter.builder("shareit.cleanup.removed")
+                .tag("entity", "bookings")
+                .description("Будущие брони удалённых пользователей и брони их вещей, отменённые при очистке")
+                .register(registry);
+        this.cleanupDuration = Timer.builder("shareit.cleanup.duration")
+                .description("Время очистки данных одного удалённого пользователя")
+                .register(registry);
+    }
+
+    public void searchResults(int size) {
+        searchResults.record(size);
+    }
+
+    public void conflict() {
+        conflicts.increment();
+    }
+
+    public void notFound() {
+        notFound.increment();
+    }
+
+    public void cleanupScheduled() {
+        cleanupsPending.incrementAndGet();
+    }
+
+    public void cleanupProgress(int items, int bookings) {
+        cleanupItems.increment(items);
+        cleanupBookings.increment(bookings);
+    }
+
+    public void cleanupFinished(long nanos) {
+        cleanupsPending.decrementAndGet();
+        cleanupDuration.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,12 +1,50 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
 
-/**
- * TODO Sprint add-item-requests.
- */
+import java.util.List;
+
+@Slf4j
 @RestController
 @RequestMapping(path = "/requests")
+@RequiredArgsConstructor
 public class ItemRequestController {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final ItemRequestService service;
+
+    @PostMapping
+    public ItemRequestDto create(@RequestHeader(USER_HEADER) Long userId,
+                                 @RequestBody ItemRequestDto dto) {
+        log.debug("POST /requests userId={}", userId);
+        return service.create(userId, dto);
+    }
+
+    @GetMapping
+    public List<ItemRequestDto> getOwn(@RequestHeader(USER_HEADER) Long userId) {
+        log.debug("GET /requests userId={}", userId);
+        return service.getOwn(userId);
+    }
+
+    @GetMapping("/all")
+    public List<ItemRequestDto> getOthers(@RequestHeader(USER_HEADER) Long userId,
+                                          @RequestParam(required = false) Long afterId,
+                                          @RequestParam(required = false) Integer from,
+                                          @RequestParam(required = false) Integer size) {
+        log.debug("GET /requests/all userId={}, afterId={}, from={}, size={}", userId, afterId, from, size);
+        return service.getOthers(userId, PageParams.of(afterId, from, size));
+    }
+
+    @GetMapping("/{requestId}")
+    public ItemRequestDto getById(@RequestHeader(USER_HEADER) Long userId,
+                                  @PathVariable Long requestId) {
+        log.debug("GET /requests/{} userId={}", requestId, userId);
+        return service.getById(userId, requestId);
+    }
 }
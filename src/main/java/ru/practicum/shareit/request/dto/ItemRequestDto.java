@@ -1,7 +1,22 @@
 package ru.practicum.shareit.request.dto;
 
-/**
- * TODO Sprint add-item-requests.
- */
+import lombok.*;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// во входящем POST /requests используется только description
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
 public class ItemRequestDto {
+    private Long id;
+    private String description;
+    private LocalDateTime created;
+
+    // вещи, созданные в ответ на запрос
+    private List<ItemDto> items;
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.request.dto;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.util.List;
+
+public class ItemRequestMapper {
+
+    public static ItemRequestDto toDto(ItemRequest r, List<ItemDto> items) {
+        if (r == null) {
+            return null;
+        }
+        return ItemRequestDto.builder()
+                .id(r.getId())
+                .description(r.getDescription())
+                .created(r.getCreated())
+                .items(items)
+                .build();
+    }
+}
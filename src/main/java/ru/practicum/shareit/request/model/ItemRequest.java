@@ -0,0 +1,16 @@
+package ru.practicum.shareit.request.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Запрос на вещь, которой ещё нет в каталоге. Не меняется после создания,
+// поэтому id растут вместе с created и порядок по id совпадает с порядком создания
+@Value
+@Builder(toBuilder = true)
+public class ItemRequest {
+    Long id;
+    String description;
+    Long requesterId;
+    LocalDateTime created;
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.request.service;
+
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+import java.util.List;
+
+public interface ItemRequestService {
+
+    ItemRequestDto create(Long requesterId, ItemRequestDto dto);
+
+    // свои запросы с ответами, от новых к старым
+    List<ItemRequestDto> getOwn(Long requesterId);
+
+    // запросы остальных пользователей, от новых к старым
+    List<ItemRequestDto> getOthers(Long userId, PageParams page);
+
+    ItemRequestDto getById(Long userId, Long requestId);
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.request.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Timed(value = "shareit.service", extraTags = {"area", "requests"}, percentiles = {0.5, 0.99}, histogram = true)
+public class ItemRequestServiceImpl implements ItemRequestService {
+
+    private final ItemRequestRepository repo;
+    private final ItemRepository itemRepo;
+    private final UserRepository userRepo;
+
+    @Override
+    public ItemRequestDto create(Long requesterId, ItemRequestDto dto) {
+        requireUser(requesterId);
+        if (dto == null || !StringUtils.hasText(dto.getDescription())) {
+            throw new ValidationException("Описание запроса не должно быть пустым");
+        }
+        ItemRequest saved = repo.save(ItemRequest.builder()
+                .description(dto.getDescription())
+                .requesterId(requesterId)
+                .created(LocalDateTime.now())
+                .build());
+        return ItemRequestMapper.toDto(saved, List.of());
+    }
+
+    @Override
+    public List<ItemRequestDto> getOwn(Long requesterId) {
+        requireUser(requesterId);
+        return withAnswers(repo.findByRequesterId(requesterId));
+    }
+
+    @Override
+    public List<ItemRequestDto> getOthers(Long userId, PageParams page) {
+        requireUser(userId);
+        return withAnswers(repo.findAllExceptRequester(userId, page));
+    }
+
+    @Override
+    public ItemRequestDto getById(Long userId, Long requestId) {
+        requireUser(userId);
+        ItemRequest request = repo.findById(requestId)
+                .orElseThrow(() -> new NotFoundException("Запрос не найден: " + requestId));
+        return withAnswers(List.of(request)).get(0);
+    }
+
+    // ответы на всю страницу запросов — одним обращением к индексу requestId -> вещи
+    private List<ItemRequestDto> withAnswers(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<ItemDto>> answers = itemRepo.findByRequestIds(
+                        requests.stream().map(ItemRequest::getId).collect(Collectors.toList())).stream()
+                .map(ItemMapper::toDto)
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+        return requests.stream()
+                .map(r -> ItemRequestMapper.toDto(r, answers.getOrDefault(r.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private void requireUser(Long userId) {
+        userRepo.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + userId));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.request.storage;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+import ru.practicum.shareit.journal.Recoverable;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Запросы в памяти для всех профилей, кроме jdbc. Вещи ссылаются на них через requestId и переживают перезапуск
+// вместе с журналом, поэтому запросы журналируются рядом с ними: иначе счётчик id начался бы заново
+// и новый запрос получил бы в ответы вещи, созданные для старого запроса с тем же id
+@Repository
+@Profile("!jdbc")
+public class InMemoryItemRequestRepository implements ItemRequestRepository, Recoverable<ItemRequest> {
+
+    private final Map<Long, ItemRequest> storage = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong(0);
+
+    // все id от новых к старым; страница «чужих» запросов — обход с пропуском своих
+    private final NavigableSet<Long> newestFirst = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+
+    // requesterId -> id его запросов от новых к старым
+    private final Map<Long, NavigableSet<Long>> byRequester = new ConcurrentHashMap<>();
+
+    // изменения пишутся в журнал, если он включён (shareit.journal.enabled)
+    private final Journal journal;
+
+    public InMemoryItemRequestRepository() {
+        this(Journal.NONE);
+    }
+
+    @Autowired
+    public InMemoryItemRequestRepository(ObjectProvider<Journal> journal) {
+        this(journal.getIfAvailable(() -> Journal.NONE));
+    }
+
+    public InMemoryItemRequestRepository(Journal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public ItemRequest save(ItemRequest request) {
+        return journal.write(() -> request.toBuilder().id(seq.incrementAndGet()).build(),
+                stored -> List.of(new JournalRecord.RequestPut(stored)),
+                this::put);
+    }
+
+    private void put(ItemRequest stored) {
+        storage.put(stored.getId(), stored);
+        byRequester.compute(stored.getRequesterId(), (k, ids) -> {
+            NavigableSet<Long> set = ids != null ? ids : new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+            set.add(stored.getId());
+            return set;
+        });
+        newestFirst.add(stored.getId());
+    }
+
+    @Override
+    public Optional<ItemRequest> findById(Long id) {
+        return Optional.ofNullable(storage.get(id));
+    }
+
+    @Override
+    public List<ItemRequest> findByRequesterId(Long requesterId) {
+        NavigableSet<Long> ids = byRequester.get(requesterId);
+        if (ids == null) {
+            return List.of();
+        }
+        return PageParams.ALL.slice(ids, storage::get);
+    }
+
+    @Override
+    public List<ItemRequest> findAllExceptRequester(Long requesterId, PageParams page) {
+        return page.slice(newestFirst, id -> {
+            ItemRequest r = storage.get(id);
+            return r != null && !r.getRequesterId().equals(requesterId) ? r : null;
+        });
+    }
+
+    @Override
+    public List<ItemRequest> values() {
+        return new ArrayList<>(storage.values());
+    }
+
+    @Override
+    public long sequence() {
+        return seq.get();
+    }
+
+    @Override
+    public void restore(Collection<ItemRequest> requests, long sequence) {
+        requests.forEach(this::put);
+        seq.accumulateAndGet(sequence, Math::max);
+    }
+}
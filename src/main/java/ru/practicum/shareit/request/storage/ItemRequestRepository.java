@@ -0,0 +1,21 @@
+package ru.practicum.shareit.request.storage;
+
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemRequestRepository {
+
+    ItemRequest save(ItemRequest request);
+
+    Optional<ItemRequest> findById(Long id);
+
+    // от новых к старым
+    List<ItemRequest> findByRequesterId(Long requesterId);
+
+    // запросы остальных пользователей от новых к старым; курсор afterId — id последнего
+    // полученного запроса, следующая страница начинается с более старых
+    List<ItemRequest> findAllExceptRequester(Long requesterId, PageParams page);
+}
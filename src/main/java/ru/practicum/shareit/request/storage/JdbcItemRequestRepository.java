@@ -0,0 +1,75 @@
+package ru.practicum.shareit.request.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Хранилище запросов в БД (профиль jdbc), рядом с вещами, которые ссылаются на запросы через items.request_id:
+// id выдаёт последовательность таблицы, поэтому после перезапуска новый запрос не получит id старого.
+// Порядок выдачи — от новых к старым, курсор afterId переводится в WHERE id < ...
+@Repository
+@Profile("jdbc")
+@RequiredArgsConstructor
+public class JdbcItemRequestRepository implements ItemRequestRepository {
+
+    private static final String COLUMNS = "id, description, requester_id, created";
+
+    private static final RowMapper<ItemRequest> MAPPER = (rs, rowNum) -> ItemRequest.builder()
+            .id(rs.getLong("id"))
+            .description(rs.getString("description"))
+            .requesterId(rs.getLong("requester_id"))
+            .created(rs.getObject("created", LocalDateTime.class))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public ItemRequest save(ItemRequest request) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO requests (description, requester_id, created) "
+                        + "VALUES (:description, :requesterId, :created)",
+                new MapSqlParameterSource()
+                        .addValue("description", request.getDescription())
+                        .addValue("requesterId", request.getRequesterId())
+                        .addValue("created", request.getCreated()),
+                keys, new String[]{"id"});
+        return request.toBuilder().id(keys.getKey().longValue()).build();
+    }
+
+    @Override
+    public Optional<ItemRequest> findById(Long id) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM requests WHERE id = :id", Map.of("id", id), MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<ItemRequest> findByRequesterId(Long requesterId) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM requests WHERE requester_id = :requesterId ORDER BY id DESC",
+                Map.of("requesterId", requesterId), MAPPER);
+    }
+
+    @Override
+    public List<ItemRequest> findAllExceptRequester(Long requesterId, PageParams page) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM requests WHERE requester_id <> :requesterId AND id < :afterId "
+                        + "ORDER BY id DESC LIMIT :size OFFSET :from",
+                new MapSqlParameterSource()
+                        .addValue("requesterId", requesterId)
+                        .addValue("afterId", page.getAfterId() != null ? page.getAfterId() : Long.MAX_VALUE)
+                        .addValue("size", page.getSize())
+                        .addValue("from", page.getFrom()),
+                MAPPER);
+    }
+}
@@ -2,8 +2,17 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.ETags;
+import ru.practicum.shareit.common.NdjsonWriter;
+import ru.practicum.shareit.common.PageParams;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.util.List;
@@ -15,29 +24,66 @@ import java.util.List;
 public class UserController {
 
     private final UserService service;
+    private final NdjsonWriter ndjson;
 
     @PostMapping
-    public UserDto create(@RequestBody UserDto dto) {
+    public User create(@RequestBody UserDto dto) {
         log.debug("POST /users body={}", dto);
         return service.create(dto);
     }
 
+    // пакетное создание: ответ — результат по каждому элементу в порядке запроса
+    @PostMapping("/batch")
+    public List<BatchResult<User>> createBatch(@RequestBody List<UserDto> dtos) {
+        log.debug("POST /users/batch size={}", dtos.size());
+        return service.createBatch(dtos);
+    }
+
+    // пакетное изменение: у каждого патча свой id, ответ — результат по каждому элементу в порядке запроса
+    @PatchMapping("/batch")
+    public List<BatchResult<User>> updateBatch(@RequestBody List<UserDto> patches) {
+        log.debug("PATCH /users/batch size={}", patches.size());
+        return service.updateBatch(patches);
+    }
+
+    // If-Match: "<ETag из GET>" — изменение применяется, только если пользователь не менялся с тех пор (иначе 412)
     @PatchMapping("/{id}")
-    public UserDto update(@PathVariable Long id, @RequestBody UserDto patch) {
-        log.debug("PATCH /users/{} body={}", id, patch);
-        return service.update(id, patch);
+    public ResponseEntity<User> update(@PathVariable Long id,
+                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @RequestBody UserDto patch) {
+        log.debug("PATCH /users/{} ifMatch={}, body={}", id, ifMatch, patch);
+        User updated = service.update(id, patch, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated);
     }
 
+    // If-None-Match с текущим ETag — 304 без тела
     @GetMapping("/{id}")
-    public UserDto get(@PathVariable Long id) {
+    public ResponseEntity<User> get(@PathVariable Long id, WebRequest request) {
         log.debug("GET /users/{}", id);
-        return service.getById(id);
+        // ETag пользователя — его версия; тег и тело берутся из одного снимка
+        User user = service.getById(id);
+        String etag = ETags.of(user.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(user);
     }
 
     @GetMapping
-    public List<UserDto> getAll() {
-        log.debug("GET /users");
-        return service.getAll();
+    public List<User> getAll(@RequestParam(required = false) Long afterId,
+                             @RequestParam(required = false) Integer from,
+                             @RequestParam(required = false) Integer size) {
+        log.debug("GET /users afterId={}, from={}, size={}", afterId, from, size);
+        return service.getAll(PageParams.of(afterId, from, size));
+    }
+
+    // потоковая выгрузка: GET /users?stream=true, по одному JSON-объекту на строку
+    @GetMapping(params = "stream=true", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam(required = false) Long afterId,
+                                                           @RequestParam(required = false) Integer from,
+                                                           @RequestParam(required = false) Integer size) {
+        log.debug("GET /users stream afterId={}, from={}, size={}", afterId, from, size);
+        return ndjson.write(service.streamAll(PageParams.of(afterId, from, size)));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.user.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+
+// Пишет User сразу в генератор в форме UserDto; version наружу не попадает
+@JsonComponent
+public class UserJsonSerializer extends JsonSerializer<User> {
+
+    @Override
+    public void serialize(User user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(user);
+        if (user.getId() != null) {
+            gen.writeNumberField("id", user.getId().longValue());
+        } else {
+            gen.writeNullField("id");
+        }
+        gen.writeStringField("name", user.getName());
+        gen.writeStringField("email", user.getEmail());
+        gen.writeEndObject();
+    }
+
+    @Override
+    public Class<User> handledType() {
+        return User.class;
+    }
+}
@@ -2,13 +2,14 @@ package ru.practicum.shareit.user.model;
 
 import lombok.*;
 
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
+// Неизменяемый снимок пользователя, подменяется в репозитории по версии
+@Value
+@Builder(toBuilder = true)
 public class User {
-    private Long id;
-    private String name;
-    private String email;
-}
\ No newline at end of file
+    Long id;
+    String name;
+    String email;
+
+    @With
+    long version;
+}
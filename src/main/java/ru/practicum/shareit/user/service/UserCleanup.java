@@ -0,0 +1,167 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Фоновая очистка после удаления пользователя: его вещи удаляются пачками по BATCH через индекс владельца
+// (из выдачи и поиска они пропадают сразу по мере удаления), затем отменяются будущие брони его вещей
+// и его собственные. Вещи удаляются раньше броней, чтобы на них уже нельзя было создать новую бронь.
+// Прошедшие брони остаются в истории арендаторов. DELETE /users/{id} очистку не ждёт.
+// Очистка живёт только в памяти процесса, и падение посреди неё оставило бы вещи без владельца, поэтому
+// после старта (и восстановления из журнала) она повторяется для всех удалённых пользователей, у которых
+// ещё остались вещи или будущие брони; повтор безопасен — удалённое пропускается
+@Slf4j
+@Component
+public class UserCleanup {
+
+    static final int BATCH = 500;
+
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private final ItemRepository items;
+    private final Optional<ItemSearchIndex> searchIndex;
+    private final BookingRepository bookings;
+    private final UserRepository users;
+    private final AsyncTaskExecutor executor;
+    private final ShareItMetrics metrics;
+    private final Clock clock;
+
+    public UserCleanup(ItemRepository items,
+                       Optional<ItemSearchIndex> searchIndex,
+                       BookingRepository bookings,
+                       UserRepository users,
+                       @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                       ShareItMetrics metrics,
+                       Clock clock) {
+        this.items = items;
+        this.searchIndex = searchIndex;
+        this.bookings = bookings;
+        this.users = users;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    public void schedule(Long userId) {
+        metrics.cleanupScheduled();
+        executor.execute(() -> run(userId));
+    }
+
+    // поиск идёт в фоне, чтобы не задерживать приём запросов
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        executor.execute(() -> {
+            try {
+                Set<Long> interrupted = findInterrupted();
+                if (!interrupted.isEmpty()) {
+                    log.warn("Очистка данных удалённых пользователей {} не завершилась, запускается повторно", interrupted);
+                    interrupted.forEach(this::schedule);
+                }
+            } catch (RuntimeException e) {
+                log.error("Не удалось найти данные удалённых пользователей", e);
+            }
+        });
+    }
+
+    // владельцы вещей и участники броней, которых уже нет среди пользователей; из участников броней —
+    // только те, у кого остались будущие брони, прошедшие очистка не трогает
+    private Set<Long> findInterrupted() {
+        Set<Long> owners = items.findOwnerIds();
+        Set<Long> candidates = new HashSet<>(owners);
+        candidates.addAll(bookings.findUserIds());
+        candidates.removeAll(users.findAllById(candidates).keySet());
+        LocalDateTime now = LocalDateTime.now(clock);
+        candidates.removeIf(id -> !owners.contains(id) && !hasFutureBookings(id, now));
+        return candidates;
+    }
+
+    private boolean hasFutureBookings(Long userId, LocalDateTime now) {
+        return bookings.findByOwnerId(userId, BookingState.FUTURE, now).stream()
+                .anyMatch(b -> b.getStatus().occupiesItem())
+                || bookings.findByBookerId(userId, BookingState.FUTURE, now).stream()
+                .anyMatch(b -> b.getStatus().occupiesItem());
+    }
+
+    private void run(Long userId) {
+        long started = System.nanoTime();
+        int removed = 0;
+        int canceled = 0;
+        try {
+            // первая страница каждый раз: предыдущая пачка уже удалена из индекса владельца
+            while (true) {
+                List<Long> ids = items.findByOwnerId(userId, PageParams.of(null, 0, BATCH)).stream()
+                        .map(Item::getId)
+                        .toList();
+                if (ids.isEmpty()) {
+                    break;
+                }
+                items.deleteAll(ids);
+                searchIndex.ifPresent(index -> index.remove(ids));
+                removed += ids.size();
+                metrics.cleanupProgress(ids.size(), 0);
+            }
+
+            LocalDateTime now = LocalDateTime.now(clock);
+            for (Booking booking : bookings.findByOwnerId(userId, BookingState.FUTURE, now)) {
+                canceled += cancel(booking);
+            }
+            for (Booking booking : bookings.findByBookerId(userId, BookingState.FUTURE, now)) {
+                canceled += cancel(booking);
+            }
+            metrics.cleanupProgress(0, canceled);
+            log.info("Данные пользователя {} очищены: вещей удалено {}, броней отменено {}", userId, removed, canceled);
+        } catch (RuntimeException e) {
+            log.error("Очистка данных пользователя {} прервана: вещей удалено {}, броней отменено {}",
+                    userId, removed, canceled, e);
+        } finally {
+            metrics.cleanupFinished(System.nanoTime() - started);
+        }
+    }
+
+    // 1 — бронь отменена, 0 — она уже не занимает вещь (отклонена или отменена параллельно)
+    private int cancel(Booking booking) {
+        for (int attempt = 1; ; attempt++) {
+            if (!booking.getStatus().occupiesItem()) {
+                return 0;
+            }
+            try {
+                bookings.update(booking.withStatus(BookingStatus.CANCELED));
+                return 1;
+            } catch (NotFoundException e) {
+                return 0;
+            } catch (VersionConflictException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                Optional<Booking> fresh = bookings.findById(booking.getId());
+                if (fresh.isEmpty()) {
+                    return 0;
+                }
+                booking = fresh.get();
+            }
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package ru.practicum.shareit.user.service;
 
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.PageParams;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+// Ответы отдаются моделью User: в JSON её пишет UserJsonSerializer в форме UserDto
 public interface UserService {
 
-    UserDto create(UserDto dto);
+    User create(UserDto dto);
 
-    UserDto update(Long id, UserDto patch);
+    // корректные элементы с уникальными email сохраняются вместе, остальные получают ошибку в своём результате
+    List<BatchResult<User>> createBatch(List<UserDto> dtos);
 
-    UserDto getById(Long id);
+    User update(Long id, UserDto patch);
 
-    List<UserDto> getAll();
+    // expectedVersions из If-Match (null — без условия); если пользователь уже другой версии, чем любая из них — PreconditionFailedException
+    User update(Long id, UserDto patch, Set<Long> expectedVersions);
+
+    // патчи с id пользователя применяются по очереди, id встречается в пакете один раз;
+    // email, занятый предыдущим элементом, даёт 409 в результате
+    List<BatchResult<User>> updateBatch(List<UserDto> patches);
+
+    User getById(Long id);
+
+    List<User> getAll(PageParams page);
+
+    // ленивая выдача для потоковых ответов; поток нужно закрыть после чтения
+    Stream<User> streamAll(PageParams page);
 
     void delete(Long id);
 }
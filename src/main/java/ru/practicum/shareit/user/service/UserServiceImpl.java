@@ -1,61 +1,177 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.PageParams;
 import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
 import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
 import ru.practicum.shareit.user.dto.UserDto;
-import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "shareit.service", extraTags = {"area", "users"}, percentiles = {0.5, 0.99}, histogram = true)
 public class UserServiceImpl implements UserService {
 
     private final UserRepository repo;
+    private final UserCleanup cleanup;
+
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
 
     private static final Pattern SIMPLE_EMAIL =
             Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
 
     @Override
-    public UserDto create(UserDto dto) {
+    public User create(UserDto dto) {
         validateForCreate(dto);
 
-        String cleanedEmail = cleanEmail(dto.getEmail());
-        dto.setEmail(cleanedEmail);
-        dto.setName(dto.getName().trim());
+        // DTO принадлежит вызывающему и не меняется: очищенные значения идут сразу в новый снимок
+        String email = cleanEmail(dto.getEmail());
+        if (repo.existsByEmail(email, null)) {
+            throw new ConflictException("Email уже используется: " + email);
+        }
 
-        if (repo.existsByEmail(cleanedEmail, null)) {
-            throw new ConflictException("Email уже используется: " + cleanedEmail);
+        return repo.save(User.builder().name(dto.getName().trim()).email(email).build());
+    }
+
+    @Override
+    public List<BatchResult<User>> createBatch(List<UserDto> dtos) {
+        BatchResult.checkSize(dtos);
+
+        @SuppressWarnings("unchecked")
+        BatchResult<User>[] results = new BatchResult[dtos.size()];
+        List<Integer> positions = new ArrayList<>(dtos.size());
+        List<User> valid = new ArrayList<>(dtos.size());
+        Set<String> batchEmails = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            UserDto dto = dtos.get(i);
+            try {
+                validateForCreate(dto);
+            } catch (ValidationException e) {
+                results[i] = BatchResult.failed(i, 400, e.getMessage());
+                continue;
+            }
+            String email = cleanEmail(dto.getEmail());
+            if (!batchEmails.add(UserRepository.normalizeEmail(email)) || repo.existsByEmail(email, null)) {
+                results[i] = BatchResult.failed(i, 409, "Email уже используется: " + email);
+                continue;
+            }
+            positions.add(i);
+            valid.add(User.builder().name(dto.getName().trim()).email(email).build());
+        }
+
+        // email мог занять параллельный запрос после проверки — тогда репозиторий отклонит пакет целиком (409)
+        List<User> saved = repo.saveAll(valid);
+        for (int k = 0; k < saved.size(); k++) {
+            int i = positions.get(k);
+            results[i] = BatchResult.ok(i, saved.get(k));
         }
+        return Arrays.asList(results);
+    }
 
-        User saved = repo.save(UserMapper.fromDto(dto));
-        return UserMapper.toDto(saved);
+    @Override
+    public User update(Long id, UserDto patch) {
+        return update(id, patch, null);
     }
 
     @Override
-    public UserDto update(Long id, UserDto patch) {
+    public User update(Long id, UserDto patch, Set<Long> expectedVersions) {
         if (patch == null) {
             throw new ValidationException("Тело запроса не должно быть пустым");
         }
 
-        User existing = repo.findById(id)
+        // патч применяется к свежему снимку; если его параллельно заменили, перечитываем и пробуем снова
+        for (int attempt = 1; ; attempt++) {
+            User existing = repo.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + id));
+            // с If-Match клиент правит конкретную версию, поэтому повторять на свежем снимке нельзя
+            if (expectedVersions != null && !expectedVersions.contains(existing.getVersion())) {
+                throw new PreconditionFailedException("Пользователь уже изменён, текущая версия: " + existing.getVersion());
+            }
+            try {
+                return repo.update(applyPatch(existing, patch));
+            } catch (VersionConflictException e) {
+                if (expectedVersions != null) {
+                    throw new PreconditionFailedException("Пользователь был изменён параллельно: " + id);
+                }
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<BatchResult<User>> updateBatch(List<UserDto> patches) {
+        BatchResult.checkSize(patches);
+
+        List<BatchResult<User>> results = new ArrayList<>(patches.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < patches.size(); i++) {
+            UserDto patch = patches.get(i);
+            if (patch == null || patch.getId() == null) {
+                results.add(BatchResult.failed(i, 400, "Не указан id пользователя"));
+            } else if (!seen.add(patch.getId())) {
+                results.add(BatchResult.failed(i, 400, "Пользователь уже есть в пакете: " + patch.getId()));
+            } else {
+                try {
+                    results.add(BatchResult.ok(i, update(patch.getId(), patch, null)));
+                } catch (ValidationException e) {
+                    results.add(BatchResult.failed(i, 400, e.getMessage()));
+                } catch (NotFoundException e) {
+                    results.add(BatchResult.failed(i, 404, e.getMessage()));
+                } catch (ConflictException e) {
+                    results.add(BatchResult.failed(i, 409, e.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public User getById(Long id) {
+        return repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + id));
+    }
+
+    @Override
+    public List<User> getAll(PageParams page) {
+        return repo.findAll(page);
+    }
+
+    @Override
+    public Stream<User> streamAll(PageParams page) {
+        return repo.streamAll(page);
+    }
+
+    @Override
+    public void delete(Long id) {
+        // очищать нечего, если пользователя уже не было
+        if (repo.deleteById(id)) {
+            cleanup.schedule(id);
+        }
+    }
+
+    private User applyPatch(User existing, UserDto patch) {
+        User.UserBuilder updated = existing.toBuilder();
 
         if (patch.getName() != null) {
             String name = patch.getName().trim();
             if (!StringUtils.hasText(name)) {
                 throw new ValidationException("Имя пользователя не должно быть пустым");
             }
-            existing.setName(name);
+            updated.name(name);
         }
 
         if (patch.getEmail() != null) {
@@ -63,33 +179,13 @@ public class UserServiceImpl implements UserService {
             if (!SIMPLE_EMAIL.matcher(email).matches()) {
                 throw new ValidationException("Некорректный email");
             }
-            if (repo.existsByEmail(email, id)) {
+            if (repo.existsByEmail(email, existing.getId())) {
                 throw new ConflictException("Email уже используется: " + email);
             }
-            existing.setEmail(email);
+            updated.email(email);
         }
 
-        return UserMapper.toDto(repo.update(existing));
-    }
-
-    @Override
-    public UserDto getById(Long id) {
-        return repo.findById(id)
-                .map(UserMapper::toDto)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + id));
-    }
-
-    @Override
-    public List<UserDto> getAll() {
-        return repo.findAll().stream()
-                .sorted(Comparator.comparing(User::getId))
-                .map(UserMapper::toDto)
-                .collect(Collectors.toList());
-    }
-
-    @Override
-    public void delete(Long id) {
-        repo.deleteById(id);
+        return updated.build();
     }
 
     private void validateForCreate(UserDto dto) {
@@ -1,51 +1,246 @@
 package ru.practicum.shareit.user.storage;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.cache.StorageCacheConfig;
+import ru.practicum.shareit.common.IdLocks;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.common.collections.ConcurrentLongObjectMap;
+import ru.practicum.shareit.common.collections.LongIdSet;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.journal.Journal;
+import ru.practicum.shareit.journal.JournalRecord;
+import ru.practicum.shareit.journal.Recoverable;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
-public class InMemoryUserRepository implements UserRepository {
+@Qualifier(StorageCacheConfig.BACKEND)
+@Profile("!jdbc")
+public class InMemoryUserRepository implements UserRepository, Recoverable<User> {
 
-    private final Map<Long, User> storage = new ConcurrentHashMap<>();
+    private final ConcurrentLongObjectMap<User> storage = new ConcurrentLongObjectMap<>();
     private final AtomicLong seq = new AtomicLong(0);
 
+    // id в порядке возрастания для постраничной выдачи без копирования и сортировки storage;
+    // новая версия набора публикуется под idsLock (у LongIdSet один писатель), читатели берут текущую
+    private volatile LongIdSet ids = LongIdSet.EMPTY;
+    private final Object idsLock = new Object();
+
+    // нормализованный email -> id владельца; putIfAbsent даёт атомарную проверку уникальности
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
+
+    // изменения пишутся в журнал, если он включён (shareit.journal.enabled)
+    private final Journal journal;
+
+    // держит пользователя от проверки версии до публикации, пока изменение пишется в журнал
+    private final IdLocks locks = new IdLocks(64);
+
+    public InMemoryUserRepository() {
+        this(Journal.NONE);
+    }
+
+    @Autowired
+    public InMemoryUserRepository(ObjectProvider<Journal> journal) {
+        this(journal.getIfAvailable(() -> Journal.NONE));
+    }
+
+    public InMemoryUserRepository(Journal journal) {
+        this.journal = journal;
+    }
+
+    // email занимается уже в prepare, чтобы параллельное создание с тем же email получило конфликт;
+    // если запись в журнал не удалась, он освобождается
     @Override
     public User save(User user) {
-        long id = seq.incrementAndGet();
-        user.setId(id);
-        storage.put(id, user);
-        return user;
+        return journal.write(() -> {
+            long id = seq.incrementAndGet();
+            claimEmail(user.getEmail(), id);
+            return user.toBuilder().id(id).version(1).build();
+        }, stored -> List.of(new JournalRecord.UserPut(stored)),
+                this::publish,
+                stored -> releaseEmail(stored.getEmail(), stored.getId()));
+    }
+
+    // id выделяются одним блоком; сначала занимаются все email, и при повторе пакет отклоняется целиком
+    @Override
+    public List<User> saveAll(List<User> users) {
+        return journal.write(() -> claimAll(users),
+                saved -> saved.stream().<JournalRecord>map(JournalRecord.UserPut::new).toList(),
+                saved -> saved.forEach(this::publish),
+                saved -> saved.forEach(u -> releaseEmail(u.getEmail(), u.getId())));
+    }
+
+    private List<User> claimAll(List<User> users) {
+        long first = seq.getAndAdd(users.size()) + 1;
+        List<User> saved = new ArrayList<>(users.size());
+        try {
+            for (int i = 0; i < users.size(); i++) {
+                claimEmail(users.get(i).getEmail(), first + i);
+                saved.add(users.get(i).toBuilder().id(first + i).version(1).build());
+            }
+        } catch (ConflictException e) {
+            saved.forEach(u -> releaseEmail(u.getEmail(), u.getId()));
+            throw e;
+        }
+        return saved;
+    }
+
+    private void publish(User stored) {
+        storage.put(stored.getId(), stored);
+        addId(stored.getId());
     }
 
     @Override
     public User update(User user) {
-        storage.put(user.getId(), user);
-        return user;
+        Long id = user.getId();
+        if (!isStorable(id)) {
+            throw new NotFoundException("Пользователь не найден: " + id);
+        }
+        return locks.withLock(id, () -> {
+            User old = storage.get(id);
+            if (old == null) {
+                throw new NotFoundException("Пользователь не найден: " + id);
+            }
+            boolean emailChanged = !Objects.equals(UserRepository.normalizeEmail(user.getEmail()),
+                    UserRepository.normalizeEmail(old.getEmail()));
+            return journal.write(() -> {
+                if (old.getVersion() != user.getVersion()) {
+                    throw new VersionConflictException("Пользователь был изменён параллельно: " + id);
+                }
+                if (emailChanged) {
+                    claimEmail(user.getEmail(), id);
+                }
+                return user.withVersion(old.getVersion() + 1);
+            }, stored -> List.of(new JournalRecord.UserPut(stored)),
+                    stored -> {
+                        storage.put(id, stored);
+                        if (emailChanged) {
+                            releaseEmail(old.getEmail(), id);
+                        }
+                    },
+                    stored -> {
+                        if (emailChanged) {
+                            releaseEmail(stored.getEmail(), id);
+                        }
+                    });
+        });
     }
 
     @Override
     public Optional<User> findById(Long id) {
-        return Optional.ofNullable(storage.get(id));
+        return isStorable(id) ? Optional.ofNullable(storage.get(id)) : Optional.empty();
+    }
+
+    @Override
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(v -> found.put(id, v));
+        }
+        return found;
+    }
+
+    @Override
+    public List<User> findAll(PageParams page) {
+        return page.stream(ids, storage::get).collect(Collectors.toList());
     }
 
     @Override
-    public List<User> findAll() {
-        return new ArrayList<>(storage.values());
+    public Stream<User> streamAll(PageParams page) {
+        return page.stream(ids, storage::get);
     }
 
     @Override
-    public void deleteById(Long id) {
-        storage.remove(id);
+    public boolean deleteById(Long id) {
+        if (!isStorable(id)) {
+            return false;
+        }
+        return locks.withLock(id, () -> journal.write(() -> storage.get(id),
+                removed -> removed != null ? List.of(new JournalRecord.UserDelete(id)) : List.of(),
+                removed -> {
+                    if (removed != null) {
+                        storage.remove(id);
+                        removeId(id);
+                        releaseEmail(removed.getEmail(), id);
+                    }
+                }) != null);
     }
 
     @Override
     public boolean existsByEmail(String email, Long ignoreUserId) {
-        return storage.values().stream()
-                .anyMatch(u -> u.getEmail().equalsIgnoreCase(email)
-                        && (ignoreUserId == null || !ignoreUserId.equals(u.getId())));
+        if (email == null) {
+            return false;
+        }
+        Long owner = emailIndex.get(UserRepository.normalizeEmail(email));
+        return owner != null && !owner.equals(ignoreUserId);
+    }
+
+    @Override
+    public long count() {
+        return storage.size();
+    }
+
+    @Override
+    public List<User> values() {
+        return storage.values();
+    }
+
+    @Override
+    public long sequence() {
+        return seq.get();
+    }
+
+    @Override
+    public void restore(Collection<User> users, long sequence) {
+        for (User user : users) {
+            claimEmail(user.getEmail(), user.getId());
+            storage.put(user.getId(), user);
+            addId(user.getId());
+        }
+        seq.accumulateAndGet(sequence, Math::max);
+    }
+
+    // выдаются только id >= 1, а ключ 0 в storage зарезервирован: остальные id заведомо отсутствуют
+    private static boolean isStorable(Long id) {
+        return id != null && id > 0;
+    }
+
+    private void addId(long id) {
+        synchronized (idsLock) {
+            ids = ids.with(id);
+        }
+    }
+
+    private void removeId(long id) {
+        synchronized (idsLock) {
+            ids = ids.without(id);
+        }
+    }
+
+    private void releaseEmail(String email, Long id) {
+        if (email != null) {
+            emailIndex.remove(UserRepository.normalizeEmail(email), id);
+        }
+    }
+
+    private void claimEmail(String email, Long id) {
+        if (email == null) {
+            return;
+        }
+        Long owner = emailIndex.putIfAbsent(UserRepository.normalizeEmail(email), id);
+        if (owner != null && !owner.equals(id)) {
+            throw new ConflictException("Email уже используется: " + email);
+        }
     }
 }
@@ -0,0 +1,169 @@
+package ru.practicum.shareit.user.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.StorageCacheConfig;
+import ru.practicum.shareit.common.JdbcStreams;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.VersionConflictException;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Хранилище пользователей в БД (профиль jdbc). Уникальность email держит ограничение uq_users_email
+// на нормализованном email, поэтому отдельная проверка перед вставкой не нужна
+@Repository
+@Qualifier(StorageCacheConfig.BACKEND)
+@Profile("jdbc")
+@RequiredArgsConstructor
+public class JdbcUserRepository implements UserRepository {
+
+    private static final String COLUMNS = "id, name, email, version";
+
+    private static final String INSERT = "INSERT INTO users (name, email, email_normalized, version) "
+            + "VALUES (:name, :email, :emailNormalized, 1)";
+
+    private static final String PAGE = "SELECT " + COLUMNS + " FROM users WHERE id > :afterId "
+            + "ORDER BY id LIMIT :size OFFSET :from";
+
+    private static final RowMapper<User> MAPPER = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .email(rs.getString("email"))
+            .version(rs.getLong("version"))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final JdbcStreams streams;
+
+    @Override
+    public User save(User user) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        try {
+            jdbc.update(INSERT, params(user), keys, new String[]{"id"});
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Email уже используется: " + user.getEmail());
+        }
+        return user.toBuilder().id(keys.getKey().longValue()).version(1).build();
+    }
+
+    // одна пачка INSERT в транзакции: при повторе email не сохраняется ни один пользователь
+    @Override
+    @Transactional
+    public List<User> saveAll(List<User> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        SqlParameterSource[] batch = users.stream().map(JdbcUserRepository::params).toArray(SqlParameterSource[]::new);
+        KeyHolder keys = new GeneratedKeyHolder();
+        try {
+            jdbc.batchUpdate(INSERT, batch, keys, new String[]{"id"});
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Email уже используется");
+        }
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<User> saved = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            // запрошен только столбец id; H2 и PostgreSQL пишут его имя в разном регистре
+            long id = ((Number) generated.get(i).values().iterator().next()).longValue();
+            saved.add(users.get(i).toBuilder().id(id).version(1).build());
+        }
+        return saved;
+    }
+
+    @Override
+    public User update(User user) {
+        int updated;
+        try {
+            updated = jdbc.update("UPDATE users SET name = :name, email = :email, email_normalized = :emailNormalized, "
+                            + "version = version + 1 WHERE id = :id AND version = :version",
+                    params(user).addValue("id", user.getId()).addValue("version", user.getVersion()));
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Email уже используется: " + user.getEmail());
+        }
+        if (updated == 0) {
+            if (findById(user.getId()).isEmpty()) {
+                throw new NotFoundException("Пользователь не найден: " + user.getId());
+            }
+            throw new VersionConflictException("Пользователь был изменён параллельно: " + user.getId());
+        }
+        return user.withVersion(user.getVersion() + 1);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id = :id", Map.of("id", id), MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id IN (:ids)", Map.of("ids", ids), MAPPER)
+                .stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+    }
+
+    @Override
+    public List<User> findAll(PageParams page) {
+        return jdbc.query(PAGE, page(page), MAPPER);
+    }
+
+    @Override
+    public Stream<User> streamAll(PageParams page) {
+        return streams.query(PAGE, page(page), MAPPER);
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        return jdbc.update("DELETE FROM users WHERE id = :id", Map.of("id", id)) > 0;
+    }
+
+    @Override
+    public boolean existsByEmail(String email, Long ignoreUserId) {
+        if (email == null) {
+            return false;
+        }
+        List<Long> owners = jdbc.queryForList("SELECT id FROM users WHERE email_normalized = :email",
+                Map.of("email", UserRepository.normalizeEmail(email)), Long.class);
+        return !owners.isEmpty() && !owners.get(0).equals(ignoreUserId);
+    }
+
+    @Override
+    public long count() {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM users", Map.of(), Long.class);
+        return count != null ? count : 0;
+    }
+
+    private static MapSqlParameterSource page(PageParams page) {
+        return new MapSqlParameterSource()
+                .addValue("afterId", page.getAfterId() != null ? page.getAfterId() : Long.MIN_VALUE)
+                .addValue("size", page.getSize())
+                .addValue("from", page.getFrom());
+    }
+
+    private static MapSqlParameterSource params(User user) {
+        return new MapSqlParameterSource()
+                .addValue("name", user.getName())
+                .addValue("email", user.getEmail())
+                .addValue("emailNormalized", UserRepository.normalizeEmail(user.getEmail()));
+    }
+}
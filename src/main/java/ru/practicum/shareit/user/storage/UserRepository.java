@@ -1,21 +1,45 @@
 package ru.practicum.shareit.user.storage;
 
+import ru.practicum.shareit.common.PageParams;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository {
 
     User save(User user);
 
+    // пакетная вставка; результаты в том же порядке, что и аргументы
+    List<User> saveAll(List<User> users);
+
+    // сохраняет снимок, только если его version равна текущей (иначе VersionConflictException);
+    // возвращает сохранённый снимок со следующей версией
     User update(User user);
 
     Optional<User> findById(Long id);
 
-    List<User> findAll();
+    // пользователи с указанными id за одно обращение к хранилищу; отсутствующие id в ответ не попадают
+    Map<Long, User> findAllById(Collection<Long> ids);
+
+    List<User> findAll(PageParams page);
+
+    // ленивый вариант для потоковой выдачи; поток нужно закрыть после чтения
+    Stream<User> streamAll(PageParams page);
 
-    void deleteById(Long id);
+    // true — пользователь был и удалён
+    boolean deleteById(Long id);
 
     boolean existsByEmail(String email, Long ignoreUserId);
+
+    long count();
+
+    // email сравниваются без учёта регистра и пробелов по краям
+    static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,32 @@
+CREATE TABLE IF NOT EXISTS users (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name             VARCHAR(255) NOT NULL,
+    email            VARCHAR(512) NOT NULL,
+    email_normalized VARCHAR(512) NOT NULL,
+    version          BIGINT       NOT NULL DEFAULT 1,
+    CONSTRAINT uq_users_email UNIQUE (email_normalized)
+);
+
+-- owner_id без внешнего ключа: вещи удалённого пользователя убираются отдельно, как и в in-memory хранилище
+CREATE TABLE IF NOT EXISTS items (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255)  NOT NULL,
+    description VARCHAR(2000) NOT NULL,
+    available   BOOLEAN       NOT NULL,
+    owner_id    BIGINT        NOT NULL,
+    request_id  BIGINT,
+    version     BIGINT        NOT NULL DEFAULT 1
+);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+-- запросы не меняются после создания; requester_id без внешнего ключа, как owner_id у вещей
+CREATE TABLE IF NOT EXISTS requests (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description  VARCHAR(2000) NOT NULL,
+    requester_id BIGINT        NOT NULL,
+    created      TIMESTAMP     NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requester ON requests (requester_id, id);
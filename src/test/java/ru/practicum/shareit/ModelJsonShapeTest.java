@@ -0,0 +1,36 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Модели пишутся в JSON своими сериализаторами — результат должен совпадать с DTO до байта
+@JsonTest
+class ModelJsonShapeTest {
+
+    @Autowired private ObjectMapper mapper;
+
+    @Test
+    void item_serializesLikeItemDto() throws Exception {
+        Item full = Item.builder().id(3L).name("Дрель \"Макита\"").description("ударная\nс кейсом")
+                .available(true).ownerId(1L).requestId(2L).version(5).build();
+        Item sparse = Item.builder().id(4L).name("Пила").version(1).build();
+        for (Item item : new Item[]{full, sparse}) {
+            assertEquals(mapper.writeValueAsString(ItemMapper.toDto(item)), mapper.writeValueAsString(item));
+        }
+    }
+
+    @Test
+    void user_serializesLikeUserDto() throws Exception {
+        User user = User.builder().id(7L).name("Пётр").email("p@ex.com").version(2).build();
+        assertEquals(mapper.writeValueAsString(UserMapper.toDto(user)), mapper.writeValueAsString(user));
+        assertEquals("{\"id\":7,\"name\":\"Пётр\",\"email\":\"p@ex.com\"}", mapper.writeValueAsString(user));
+    }
+}
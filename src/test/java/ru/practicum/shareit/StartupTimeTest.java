@@ -0,0 +1,98 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Холодный старт артефакта профиля fast-start в отдельной JVM: приложение завершается сразу после refresh
+// контекста (spring.context.exit=onRefresh), замеряется время процесса целиком. Один и тот же распакованный jar
+// запускается как собран (AOT, CDS-архив, ленивая инициализация) и без этого (spring.aot.enabled=false,
+// без архива, lazy-initialization=false). Первый запуск прогревочный и не учитывается; дальше режимы
+// запускаются поочерёдно по RUNS раз и сравниваются медианы.
+// Десяток холодных JVM — это долго и чувствительно к соседям по машине, поэтому в обычном mvn test тест не идёт:
+//   mvn -Pfast-start -DskipTests package
+//   mvn test -Dtest=StartupTimeTest -Dstartup.jar=target/cds/shareit-0.0.1-SNAPSHOT.jar
+// CDS-архив ищется рядом с jar (application.jsa), профиль — -Dstartup.profile, тот же, что fast-start.profile.
+// Потолок медианы переопределяется -Dstartup.max-ms, число запусков -Dstartup.runs
+@EnabledIfSystemProperty(named = "startup.jar", matches = ".+")
+class StartupTimeTest {
+
+    private static final long MAX_MS = Long.getLong("startup.max-ms", 15_000);
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final String PROFILE = System.getProperty("startup.profile", "jdbc");
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void fastStartArtifact_startsFasterThanPlainRun() throws Exception {
+        Path jar = Path.of(System.getProperty("startup.jar")).toAbsolutePath();
+        Path archive = jar.resolveSibling("application.jsa");
+        assertTrue(Files.isRegularFile(jar), "Нет артефакта " + jar + ": сначала mvn -Pfast-start -DskipTests package");
+        assertTrue(Files.isRegularFile(archive), "Нет CDS-архива " + archive);
+
+        coldStart(jar, archive, false, 0);
+
+        long[] plain = new long[RUNS];
+        long[] fast = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            plain[run] = coldStart(jar, archive, false, run + 1);
+            fast[run] = coldStart(jar, archive, true, run + 1);
+        }
+        long baseline = median(plain);
+        long fastMedian = median(fast);
+
+        assertTrue(fastMedian < MAX_MS, "Медиана быстрого старта " + fastMedian + " мс, порог " + MAX_MS + " мс");
+        assertTrue(fastMedian < baseline, "AOT, CDS и ленивая инициализация не ускорили старт: медиана "
+                + fastMedian + " мс против " + baseline + " мс (запуски "
+                + Arrays.toString(plain) + " / " + Arrays.toString(fast) + ")");
+    }
+
+    private long coldStart(Path jar, Path archive, boolean fast, int run) throws Exception {
+        Path log = dir.resolve("startup-fast-" + fast + "-" + run + ".log");
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (fast) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add("-Dspring.aot.enabled=" + fast);
+        command.add("-Dspring.context.exit=onRefresh");
+        command.add("-Dspring.profiles.active=" + PROFILE);
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=0", "--spring.sql.init.mode=never"));
+        if (!fast) {
+            command.add("--spring.main.lazy-initialization=false");
+        }
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        if (!process.waitFor(MAX_MS * 2, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            process.waitFor();
+            fail("Старт не завершился за " + MAX_MS * 2 + " мс\n" + Files.readString(log));
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertEquals(0, process.exitValue(), Files.readString(log));
+        return elapsed;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit;
+
+import org.apache.catalina.connector.Connector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsTest {
+
+    @Autowired private TestRestTemplate rest;
+    @Autowired private ServletWebServerApplicationContext context;
+    @Autowired @Qualifier("applicationTaskExecutor") private AsyncTaskExecutor taskExecutor;
+
+    @Test
+    void requestsAndAsyncWork_runOnVirtualThreads() throws Exception {
+        Connector connector = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+        assertEquals("VirtualThreadExecutor", connector.getProtocolHandler().getExecutor().getClass().getSimpleName());
+        assertTrue(taskExecutor.submit(() -> Thread.currentThread().isVirtual()).get());
+
+        assertEquals(HttpStatus.OK, rest.postForEntity("/users", new UserDto(null, "A", "a@ex.com"), UserDto.class)
+                .getStatusCode());
+        ResponseEntity<String> streamed = rest.getForEntity("/users?stream=true", String.class);
+        assertEquals(HttpStatus.OK, streamed.getStatusCode());
+        assertEquals("{\"id\":1,\"name\":\"A\",\"email\":\"a@ex.com\"}\n", streamed.getBody());
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.test.context.ActiveProfiles;
+
+// те же сценарии поверх вещей и пользователей в БД (H2 в режиме PostgreSQL): списки броней
+// подтягивают вещи и арендаторов через findAllById, одним запросом на каждую таблицу
+@ActiveProfiles({"test", "jdbc"})
+class BookingControllerJdbcTest extends BookingControllerTest {
+}
@@ -0,0 +1,260 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.common.TestClock;
+import ru.practicum.shareit.common.TestClockConfig;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestClockConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingControllerTest {
+
+    private static final String HDR = "X-Sharer-User-Id";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper om;
+    @Autowired private TestClock clock;
+
+    private final LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+
+    private long createUser(String name, String email) throws Exception {
+        String json = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, name, email))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
+    private long createItem(long ownerId, boolean available) throws Exception {
+        String json = mockMvc.perform(post("/items")
+                        .header(HDR, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, "Дрель", "ударная", available, null, null))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
+    private ResultActions book(long bookerId, long itemId, LocalDateTime start, LocalDateTime end) throws Exception {
+        return mockMvc.perform(post("/bookings")
+                .header(HDR, bookerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(om.writeValueAsString(new BookingCreateDto(itemId, start, end))));
+    }
+
+    private long bookOk(long bookerId, long itemId, LocalDateTime start, LocalDateTime end) throws Exception {
+        String json = book(bookerId, itemId, start, end)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
+    @Test
+    void createAndApprove_ok() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long booker = createUser("Booker", "b@ex.com");
+        long item = createItem(owner, true);
+
+        book(booker, item, base, base.plusHours(2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.status", is("WAITING")))
+                .andExpect(jsonPath("$.item.id", is((int) item)))
+                .andExpect(jsonPath("$.booker.id", is((int) booker)))
+                .andExpect(jsonPath("$.start", is(base.toString())));
+
+        mockMvc.perform(patch("/bookings/{id}", 1L).header(HDR, booker).param("approved", "true"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/bookings/{id}", 1L).header(HDR, owner).param("approved", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("APPROVED")));
+        mockMvc.perform(patch("/bookings/{id}", 1L).header(HDR, owner).param("approved", "false"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/bookings/{id}", 1L).header(HDR, booker))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings/{id}", 1L).header(HDR, createUser("Other", "x@ex.com")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void create_invalid() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long booker = createUser("Booker", "b@ex.com");
+        long item = createItem(owner, true);
+        long unavailable = createItem(owner, false);
+
+        book(booker, item, base.plusHours(2), base).andExpect(status().isBadRequest());
+        book(booker, item, base, base).andExpect(status().isBadRequest());
+        book(booker, item, LocalDateTime.now().minusHours(1), base).andExpect(status().isBadRequest());
+        book(booker, item, null, base).andExpect(status().isBadRequest());
+        book(booker, unavailable, base, base.plusHours(1)).andExpect(status().isBadRequest());
+        book(owner, item, base, base.plusHours(1)).andExpect(status().isNotFound());
+        book(booker, 999L, base, base.plusHours(1)).andExpect(status().isNotFound());
+        book(999L, item, base, base.plusHours(1)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void create_overlapping_rejected_adjacentAllowed() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long booker = createUser("Booker", "b@ex.com");
+        long item = createItem(owner, true);
+        long other = createItem(owner, true);
+
+        long first = bookOk(booker, item, base, base.plusHours(2));
+        book(booker, item, base.plusHours(1), base.plusHours(3)).andExpect(status().isConflict());
+        book(booker, item, base.minusHours(1), base.plusMinutes(1)).andExpect(status().isConflict());
+        book(booker, item, base.plusMinutes(10), base.plusMinutes(20)).andExpect(status().isConflict());
+        book(booker, item, base.minusHours(1), base.plusHours(3)).andExpect(status().isConflict());
+        bookOk(booker, item, base.plusHours(2), base.plusHours(3));
+        bookOk(booker, item, base.minusHours(1), base);
+        bookOk(booker, other, base, base.plusHours(2));
+
+        // отклонённая бронь освобождает интервал
+        mockMvc.perform(patch("/bookings/{id}", first).header(HDR, owner).param("approved", "false"))
+                .andExpect(status().isOk());
+        bookOk(booker, item, base.plusMinutes(30), base.plusHours(1));
+    }
+
+    @Test
+    void create_concurrentSameSlot_onlyOneWins() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long item = createItem(owner, true);
+        int n = 8;
+        List<Long> bookers = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            bookers.add(createUser("B" + i, "b" + i + "@ex.com"));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            long booker = bookers.get(i);
+            LocalDateTime start = base.plusMinutes(i * 10L);
+            statuses.add(pool.submit(() -> {
+                go.await();
+                return book(booker, item, start, start.plusHours(2)).andReturn().getResponse().getStatus();
+            }));
+        }
+        go.countDown();
+        int ok = 0;
+        for (Future<Integer> s : statuses) {
+            ok += s.get(10, TimeUnit.SECONDS) == 200 ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertEquals(1, ok);
+        mockMvc.perform(get("/bookings/owner").header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void ownerItems_showLastAndNextApprovedBookings() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long booker = createUser("Booker", "b@ex.com");
+        long item = createItem(owner, true);
+        long idle = createItem(owner, true);
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        long last = bookOk(booker, item, now.plusMinutes(1), now.plusMinutes(2));
+        long next = bookOk(booker, item, base, base.plusHours(1));
+        long waiting = bookOk(booker, item, base.minusHours(2), base.minusHours(1));
+        for (long id : new long[]{last, next}) {
+            mockMvc.perform(patch("/bookings/{id}", id).header(HDR, owner).param("approved", "true"))
+                    .andExpect(status().isOk());
+        }
+        clock.advance(Duration.ofMinutes(3));
+
+        mockMvc.perform(get("/items/{id}", item).header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastBooking.id", is((int) last)))
+                .andExpect(jsonPath("$.lastBooking.bookerId", is((int) booker)))
+                .andExpect(jsonPath("$.nextBooking.id", is((int) next)));
+        mockMvc.perform(get("/items").header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lastBooking.id", is((int) last)))
+                .andExpect(jsonPath("$[0].nextBooking.id", is((int) next)))
+                .andExpect(jsonPath("$[1].id", is((int) idle)))
+                .andExpect(jsonPath("$[1].lastBooking", nullValue()))
+                .andExpect(jsonPath("$[1].nextBooking", nullValue()));
+        mockMvc.perform(get("/items/{id}", item).header(HDR, booker))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastBooking", nullValue()))
+                .andExpect(jsonPath("$.nextBooking", nullValue()));
+        mockMvc.perform(get("/items/{id}", item))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextBooking", nullValue()));
+
+        // неподтверждённая бронь не показывается, даже если она ближе подтверждённой
+        mockMvc.perform(get("/bookings/{id}", waiting).header(HDR, owner))
+                .andExpect(jsonPath("$.status", is("WAITING")));
+    }
+
+    @Test
+    void lists_byBookerAndOwner_filteredByState() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long booker = createUser("Booker", "b@ex.com");
+        long item = createItem(owner, true);
+        long other = createItem(owner, true);
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        long past = bookOk(booker, item, now.plusMinutes(1), now.plusMinutes(2));
+        long current = bookOk(booker, other, now.plusMinutes(1), now.plusDays(1));
+        long future = bookOk(booker, item, base, base.plusHours(1));
+        long rejected = bookOk(booker, item, base.plusDays(1), base.plusDays(2));
+        mockMvc.perform(patch("/bookings/{id}", rejected).header(HDR, owner).param("approved", "false"))
+                .andExpect(status().isOk());
+        clock.advance(Duration.ofMinutes(3));
+
+        mockMvc.perform(get("/bookings").header(HDR, booker))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) rejected, (int) future, (int) current, (int) past)));
+        mockMvc.perform(get("/bookings").header(HDR, booker).param("state", "PAST"))
+                .andExpect(jsonPath("$[*].id", contains((int) past)));
+        mockMvc.perform(get("/bookings").header(HDR, booker).param("state", "CURRENT"))
+                .andExpect(jsonPath("$[*].id", contains((int) current)));
+        mockMvc.perform(get("/bookings").header(HDR, booker).param("state", "FUTURE"))
+                .andExpect(jsonPath("$[*].id", contains((int) rejected, (int) future)));
+        mockMvc.perform(get("/bookings").header(HDR, booker).param("state", "WAITING"))
+                .andExpect(jsonPath("$[*].id", contains((int) future, (int) current, (int) past)));
+        mockMvc.perform(get("/bookings/owner").header(HDR, owner).param("state", "REJECTED"))
+                .andExpect(jsonPath("$[*].id", contains((int) rejected)));
+        mockMvc.perform(get("/bookings/owner").header(HDR, booker))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/bookings").header(HDR, booker).param("state", "UNSUPPORTED_STATUS"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Неизвестное состояние: UNSUPPORTED_STATUS")));
+        mockMvc.perform(get("/bookings/owner").header(HDR, 999L))
+                .andExpect(status().isNotFound());
+    }
+}
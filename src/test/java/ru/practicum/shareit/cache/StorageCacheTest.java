@@ -0,0 +1,76 @@
+package ru.practicum.shareit.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "jdbc"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class StorageCacheTest {
+
+    private static final String HDR = "X-Sharer-User-Id";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper om;
+    @Autowired private MeterRegistry registry;
+
+    @Test
+    void ownerCheck_servedFromCache_andUpdatesInvalidate() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, "Owner", "o@ex.com"))))
+                .andExpect(status().isOk());
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/items")
+                            .header(HDR, 1L)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(om.writeValueAsString(new ItemDto(null, "Дрель " + i, "ударная", true, null, null))))
+                    .andExpect(status().isOk());
+        }
+        // владелец проверяется до и после сохранения вещи
+        assertEquals(6.0, gets("users", "hit"));
+        assertEquals(0.0, gets("users", "miss"));
+
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Renamed")));
+
+        mockMvc.perform(patch("/items/{id}", 1L)
+                        .header(HDR, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"available\":false}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/items/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available", is(false)));
+
+        mockMvc.perform(delete("/users/{id}", 1L))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", 1L))
+                .andExpect(status().isNotFound());
+    }
+
+    private double gets(String cache, String result) {
+        return registry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+}
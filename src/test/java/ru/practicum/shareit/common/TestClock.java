@@ -0,0 +1,42 @@
+package ru.practicum.shareit.common;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+// Часы, которые тест двигает сам: брони «заканчиваются» сразу, без ожидания реального времени
+public class TestClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile Instant now;
+
+    public TestClock() {
+        this(Instant.now().truncatedTo(ChronoUnit.SECONDS), ZoneId.systemDefault());
+    }
+
+    private TestClock(Instant now, ZoneId zone) {
+        this.now = now;
+        this.zone = zone;
+    }
+
+    public void advance(Duration duration) {
+        now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new TestClock(now, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return now;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+// Подключается через @Import: сервисы получают TestClock вместо системных часов
+@TestConfiguration
+public class TestClockConfig {
+
+    @Bean
+    @Primary
+    public TestClock testClock() {
+        return new TestClock();
+    }
+}
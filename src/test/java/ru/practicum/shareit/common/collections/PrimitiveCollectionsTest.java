@@ -0,0 +1,103 @@
+package ru.practicum.shareit.common.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Случайные операции сверяются с коллекциями JDK
+class PrimitiveCollectionsTest {
+
+    private final Random rnd = new Random(42);
+
+    @Test
+    void hashMaps_matchHashMap_underPutAndRemove() {
+        LongLongHashMap longs = new LongLongHashMap(4);
+        LongObjectHashMap<String> objects = new LongObjectHashMap<>(4);
+        ConcurrentLongObjectMap<String> concurrent = new ConcurrentLongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // узкий диапазон ключей даёт длинные цепочки и частые сдвиги при удалении
+            long key = 1 + rnd.nextInt(2_000);
+            if (rnd.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                assertEquals(removed != null ? removed : LongLongHashMap.MISSING, longs.remove(key));
+                assertEquals(removed != null ? removed.toString() : null, objects.remove(key));
+                assertEquals(removed != null ? removed.toString() : null, concurrent.remove(key));
+            } else {
+                long value = rnd.nextInt(1_000_000);
+                Long previous = expected.put(key, value);
+                assertEquals(previous != null ? previous : LongLongHashMap.MISSING, longs.put(key, value));
+                assertEquals(previous != null ? previous.toString() : null, objects.put(key, Long.toString(value)));
+                concurrent.put(key, Long.toString(value));
+            }
+        }
+        assertEquals(expected.size(), longs.size());
+        assertEquals(expected.size(), objects.size());
+        assertEquals(expected.size(), concurrent.size());
+        assertEquals(expected.values().stream().map(String::valueOf).sorted().collect(Collectors.toList()),
+                concurrent.values().stream().sorted().collect(Collectors.toList()));
+        for (long key = 1; key <= 2_000; key++) {
+            Long value = expected.get(key);
+            assertEquals(value != null ? value : LongLongHashMap.MISSING, longs.get(key));
+            assertEquals(value != null ? value.toString() : null, objects.get(key));
+            assertEquals(value != null ? value.toString() : null, concurrent.get(key));
+        }
+    }
+
+    @Test
+    void idSet_versionsStayIntact_andSetOperationsMatchTreeSet() {
+        LongIdSet set = LongIdSet.EMPTY;
+        TreeSet<Long> expected = new TreeSet<>();
+        List<LongIdSet> versions = new ArrayList<>();
+        List<List<Long>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // в основном дописывание по возрастанию, как при выдаче id, плюс вставки в середину и удаления
+            long id = rnd.nextInt(10) < 7 ? expected.isEmpty() ? 1 : expected.last() + 1 + rnd.nextInt(3)
+                    : 1 + rnd.nextInt(3 * (expected.size() + 1));
+            if (rnd.nextInt(4) == 0) {
+                set = set.without(id);
+                expected.remove(id);
+            } else {
+                set = set.with(id);
+                expected.add(id);
+            }
+            if (i % 500 == 0) {
+                versions.add(set);
+                snapshots.add(List.copyOf(expected));
+            }
+        }
+        assertEquals(List.copyOf(expected), boxed(set.stream()));
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(snapshots.get(i), boxed(versions.get(i).stream()), "версия " + i);
+        }
+        long after = expected.first() + (expected.last() - expected.first()) / 2;
+        assertEquals(List.copyOf(expected.tailSet(after, false)), boxed(set.streamAfter(after)));
+
+        LongIdSet a = random(3_000, 100_000);
+        LongIdSet b = random(500, 100_000);
+        LongIdSet c = random(20_000, 100_000);
+        Set<Long> inAll = new TreeSet<>(boxed(a.stream()));
+        inAll.retainAll(boxed(b.stream()));
+        inAll.retainAll(boxed(c.stream()));
+        assertEquals(List.copyOf(inAll), boxed(LongIdSet.intersect(List.of(a, b, c), Long.MIN_VALUE)));
+        assertEquals(inAll.stream().filter(id -> id > 50_000).collect(Collectors.toList()),
+                boxed(LongIdSet.intersect(List.of(c, a, b), 50_000)));
+
+        Set<Long> any = new TreeSet<>(boxed(a.stream()));
+        any.addAll(boxed(b.stream()));
+        any.addAll(boxed(c.stream()));
+        assertEquals(List.copyOf(any), boxed(LongIdSet.union(List.of(a, b, c)).stream()));
+    }
+
+    private LongIdSet random(int count, int bound) {
+        return LongIdSet.of(LongStream.generate(() -> 1 + rnd.nextInt(bound)).limit(count).toArray());
+    }
+
+    private static List<Long> boxed(LongStream ids) {
+        return ids.boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+// те же сценарии, что и для in-memory хранилища, но поверх БД (H2 в режиме PostgreSQL)
+@ActiveProfiles({"test", "jdbc"})
+class ItemControllerJdbcTest extends ItemControllerTest {
+
+    @Override
+    @Test
+    @Disabled("ранжированный индекс включён только для хранилища в памяти, в БД поиск подстроки через pg_trgm")
+    void search_rankedByRelevance_withPrefixesAndTypos() {
+    }
+
+    @Override
+    protected boolean searchOrderedById() {
+        return true;
+    }
+}
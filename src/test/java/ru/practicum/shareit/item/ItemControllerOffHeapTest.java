@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+// те же сценарии поверх хранилища вне кучи; маленькие блоки, чтобы изменения доходили до уплотнения
+@ActiveProfiles("offheap")
+@TestPropertySource(properties = "shareit.items.offheap.chunk-size=256B")
+class ItemControllerOffHeapTest extends ItemControllerTest {
+
+    @Override
+    @Test
+    @Disabled("ранжированный индекс включён только для хранилища в памяти, вне кучи поиск подстроки обходом блоков")
+    void search_rankedByRelevance_withPrefixesAndTypos() {
+    }
+
+    @Override
+    protected boolean searchOrderedById() {
+        return true;
+    }
+}
@@ -1,22 +1,37 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.common.TestClock;
+import ru.practicum.shareit.common.TestClockConfig;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@Import(TestClockConfig.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class ItemControllerTest {
 
@@ -24,6 +39,12 @@ class ItemControllerTest {
 
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper om;
+    @Autowired private TestClock clock;
+
+    // выдача поиска по возрастанию id (jdbc, offheap) листается и курсором; ранжированная — только from/size
+    protected boolean searchOrderedById() {
+        return false;
+    }
 
     private long createUser(String name, String email) throws Exception {
         UserDto u = new UserDto(null, name, email);
@@ -46,6 +67,16 @@ class ItemControllerTest {
         return om.readTree(json).get("id").asLong();
     }
 
+    private long book(long bookerId, long itemId, LocalDateTime start, LocalDateTime end) throws Exception {
+        String json = mockMvc.perform(post("/bookings")
+                        .header(HDR, bookerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new BookingCreateDto(itemId, start, end))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
     @Test
     void createItem_ok() throws Exception {
         long ownerId = createUser("Owner", "o@ex.com");
@@ -71,6 +102,32 @@ class ItemControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void zeroIds_treatedAsMissing() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        createItem(owner, new ItemDto(null, "Молоток", "500 г", true, null, null));
+
+        mockMvc.perform(get("/items/{id}", 0L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", containsString("Вещь не найдена")));
+
+        mockMvc.perform(get("/items").header(HDR, 0L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", containsString("Пользователь не найден")));
+
+        mockMvc.perform(post("/items")
+                        .header(HDR, 0L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, "Дрель", "600Вт", true, null, null))))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(patch("/items/{id}", 0L)
+                        .header(HDR, owner)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Кувалда\"}"))
+                .andExpect(status().isNotFound());
+    }
+
     // --- Разбивка бывшего createItem_validationErrors на 3 отдельных теста ---
 
     @Test
@@ -112,6 +169,84 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.error", containsString("Поле доступности вещи")));
     }
 
+    @Test
+    void createBatch_perElementResults_indexedTogether() throws Exception {
+        long ownerId = createUser("Owner", "o@ex.com");
+        List<ItemDto> batch = List.of(
+                new ItemDto(null, "Дрель", "ударная", true, null, null),
+                new ItemDto(null, "", "без названия", true, null, null),
+                new ItemDto(null, "Пила", "цепная", null, null, null),
+                new ItemDto(null, "Дрель-шуруповёрт", "аккумуляторная", true, null, null));
+
+        mockMvc.perform(post("/items/batch")
+                        .header(HDR, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status", contains(200, 400, 400, 200)))
+                .andExpect(jsonPath("$[0].value.ownerId", is((int) ownerId)))
+                .andExpect(jsonPath("$[2].error", containsString("available")));
+
+        mockMvc.perform(get("/items").header(HDR, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Дрель", "Дрель-шуруповёрт")));
+        mockMvc.perform(get("/items/search").param("text", "дрель"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(post("/items/batch")
+                        .header(HDR, 999L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(batch)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void updateBatch_perElementResults_reindexed() throws Exception {
+        long ownerId = createUser("Owner", "o@ex.com");
+        long stranger = createUser("Stranger", "s@ex.com");
+        long drill = createItem(ownerId, new ItemDto(null, "Дрель", "ударная", true, null, null));
+        long saw = createItem(ownerId, new ItemDto(null, "Пила", "цепная", true, null, null));
+        long foreign = createItem(stranger, new ItemDto(null, "Лестница", "3 м", true, null, null));
+        long rope = createItem(ownerId, new ItemDto(null, "Верёвка", "10 м", true, null, null));
+        List<ItemDto> batch = List.of(
+                new ItemDto(drill, "Перфоратор", null, null, null, null),
+                new ItemDto(saw, "", null, null, null, null),
+                new ItemDto(foreign, "Чужая", null, null, null, null),
+                new ItemDto(999L, "Нет такой", null, null, null, null),
+                new ItemDto(null, "Без id", null, null, null, null),
+                new ItemDto(drill, null, null, false, null, null),
+                new ItemDto(rope, null, "альпинистская", null, null, null));
+
+        mockMvc.perform(patch("/items/batch")
+                        .header(HDR, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].index", contains(0, 1, 2, 3, 4, 5, 6)))
+                .andExpect(jsonPath("$[*].status", contains(200, 400, 404, 404, 400, 400, 200)))
+                .andExpect(jsonPath("$[0].value.name", is("Перфоратор")))
+                .andExpect(jsonPath("$[2].error", containsString("только её владелец")))
+                .andExpect(jsonPath("$[5].error", containsString("уже есть в пакете")))
+                .andExpect(jsonPath("$[6].value.description", is("альпинистская")));
+
+        mockMvc.perform(get("/items").header(HDR, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Перфоратор", "Пила", "Верёвка")))
+                .andExpect(jsonPath("$[*].available", contains(true, true, true)));
+        mockMvc.perform(get("/items/search").param("text", "перфоратор"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) drill)));
+        mockMvc.perform(get("/items/{id}", foreign))
+                .andExpect(jsonPath("$.name", is("Лестница")));
+
+        mockMvc.perform(patch("/items/batch")
+                        .header(HDR, 999L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(batch)))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void patchItem_onlyOwner_canEdit() throws Exception {
         long owner = createUser("Owner", "o@ex.com");
@@ -135,6 +270,82 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.name", is("Лестница-трансформер")));
     }
 
+    @Test
+    void getItem_etag_perViewer_conditionalGetAndIfMatch() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long stranger = createUser("Stranger", "s@ex.com");
+        long itemId = createItem(owner, new ItemDto(null, "Лестница", "3 м", true, null, null));
+
+        // владелец видит брони, поэтому его тег включает их id
+        mockMvc.perform(get("/items/{id}", itemId).header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0-0-0\""));
+        mockMvc.perform(get("/items/{id}", itemId).header(HDR, stranger))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0\""));
+        mockMvc.perform(get("/items/{id}", itemId).header(HDR, stranger).header("If-None-Match", "\"1-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(patch("/items/{id}", itemId)
+                        .header(HDR, owner)
+                        .header("If-Match", "\"1-0-0-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Стремянка\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""));
+        mockMvc.perform(patch("/items/{id}", itemId)
+                        .header(HDR, owner)
+                        .header("If-Match", "\"1-0-0-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Потерянная правка\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/items/{id}", itemId)
+                        .header(HDR, owner)
+                        .header("If-Match", "W/\"2-0-0-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Слабый тег\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/items/{id}", itemId).header(HDR, stranger).header("If-None-Match", "\"1-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2-0\""))
+                .andExpect(jsonPath("$.name", is("Стремянка")));
+    }
+
+    @Test
+    void patchItem_concurrentPatches_doNotInterleave() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long itemId = createItem(owner, new ItemDto(null, "v0", "v0", true, null, null));
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 1; i <= threads; i++) {
+            String body = om.writeValueAsString(new ItemDto(null, "v" + i, "v" + i, null, null, null));
+            results.add(pool.submit(() -> {
+                start.await();
+                return mockMvc.perform(patch("/items/{id}", itemId)
+                                .header(HDR, owner)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> f : results) {
+            assertThat(f.get(10, TimeUnit.SECONDS), anyOf(is(200), is(409)));
+        }
+        pool.shutdown();
+
+        String json = mockMvc.perform(get("/items/{id}", itemId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode item = om.readTree(json);
+        assertEquals(item.get("name").asText(), item.get("description").asText());
+    }
+
     @Test
     void getOwnerItems_ok() throws Exception {
         long owner = createUser("Owner", "o@ex.com");
@@ -147,6 +358,23 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[*].name", containsInAnyOrder("Молоток", "Ножовка")));
     }
 
+    @Test
+    void getOwnerItems_onlyOwn_orderedById() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long other = createUser("Other", "other@ex.com");
+        long first = createItem(owner, new ItemDto(null, "Молоток", "500 г", true, null, null));
+        createItem(other, new ItemDto(null, "Стремянка", "2 м", true, null, null));
+        long third = createItem(owner, new ItemDto(null, "Ножовка", "по металлу", false, null, null));
+
+        mockMvc.perform(get("/items").header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) first, (int) third)));
+
+        mockMvc.perform(get("/items").header(HDR, createUser("Empty", "e@ex.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     @Test
     void search_items_onlyAvailable_caseInsensitive() throws Exception {
         long owner = createUser("Owner", "o@ex.com");
@@ -159,10 +387,212 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)));
     }
 
+    @Test
+    void search_followsUpdates_substringAndShortQueries() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long saw = createItem(owner, new ItemDto(null, "Пила", "ручная", true, null, null));
+        long drill = createItem(owner, new ItemDto(null, "Дрель", "ручная ударная", true, null, null));
+
+        mockMvc.perform(get("/items/search").param("text", "учн"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) saw, (int) drill)));
+
+        mockMvc.perform(patch("/items/{id}", saw)
+                        .header(HDR, owner)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, null, "электрическая", null, null, null))))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/items/{id}", drill)
+                        .header(HDR, owner)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, null, null, false, null, null))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/items/search").param("text", "учн"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/items/search").param("text", "ЭЛЕКТР"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) saw)));
+        mockMvc.perform(get("/items/search").param("text", "пи"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) saw)));
+    }
+
+    @Test
+    void search_rankedByRelevance_withPrefixesAndTypos() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long hammer = createItem(owner, new ItemDto(null, "Перфоратор", "заменяет дрель, есть ударный режим", true, null, null));
+        long drill = createItem(owner, new ItemDto(null, "Дрель ударная", "для бетона", true, null, null));
+        long driver = createItem(owner, new ItemDto(null, "Шуруповёрт", "аккумуляторный", true, null, null));
+
+        // совпадение в названии выше совпадения в описании, хотя по id вещь с описанием раньше
+        mockMvc.perform(get("/items/search").param("text", "ДРЕЛЬ"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) drill, (int) hammer)));
+        mockMvc.perform(get("/items/search").param("text", "дрель").param("from", "1").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) hammer)));
+
+        // опечатки, ё/е и несколько слов (должно совпасть каждое, в том числе префиксом)
+        mockMvc.perform(get("/items/search").param("text", "дрлеь"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is((int) drill)));
+        mockMvc.perform(get("/items/search").param("text", "перфаратор"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) hammer)));
+        mockMvc.perform(get("/items/search").param("text", "шуруповерт"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) driver)));
+        mockMvc.perform(get("/items/search").param("text", "удар бетон"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) drill)));
+    }
+
+    @Test
+    void ownerItemsAndSearch_paged() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long[] ids = new long[4];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = createItem(owner, new ItemDto(null, "Отвёртка " + i, "крестовая", true, null, null));
+        }
+
+        mockMvc.perform(get("/items").header(HDR, owner).param("from", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) ids[1], (int) ids[2])));
+        mockMvc.perform(get("/items").header(HDR, owner).param("afterId", String.valueOf(ids[2])))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) ids[3])));
+
+        mockMvc.perform(get("/items/search").param("text", "КРЕСТ").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) ids[0], (int) ids[1], (int) ids[2])));
+        mockMvc.perform(get("/items/search").param("text", "крест").param("from", "1").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) ids[1], (int) ids[2], (int) ids[3])));
+        mockMvc.perform(get("/items/search").param("text", "кр").param("from", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) ids[3])));
+    }
+
+    @Test
+    void search_afterId_onlyWhenOrderedById() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long[] ids = new long[4];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = createItem(owner, new ItemDto(null, "Отвёртка " + i, "крестовая", true, null, null));
+        }
+
+        if (searchOrderedById()) {
+            mockMvc.perform(get("/items/search").param("text", "крест").param("afterId", String.valueOf(ids[0]))
+                            .param("from", "1").param("size", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", contains((int) ids[2], (int) ids[3])));
+
+            MvcResult started = mockMvc.perform(get("/items/search").param("text", "крест").param("stream", "true")
+                            .param("afterId", String.valueOf(ids[2])))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertEquals(ids[3], om.readTree(body.trim()).get("id").asLong());
+        } else {
+            mockMvc.perform(get("/items/search").param("text", "крест").param("afterId", String.valueOf(ids[0])))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", containsString("afterId не поддерживается")));
+            mockMvc.perform(get("/items/search").param("text", "крест").param("stream", "true")
+                            .param("afterId", String.valueOf(ids[0])))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void ownerItemsAndSearch_streamedAsNdjson() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long first = createItem(owner, new ItemDto(null, "Дрель", "ударная", true, null, null));
+        long second = createItem(owner, new ItemDto(null, "Перфоратор", "ударный режим", true, null, null));
+
+        MvcResult started = mockMvc.perform(get("/items").header(HDR, owner).param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(first, om.readTree(lines[0]).get("id").asLong());
+        assertEquals(second, om.readTree(lines[1]).get("id").asLong());
+
+        // поток поиска листается так же, как обычная выдача: from/size по тому же порядку
+        started = mockMvc.perform(get("/items/search").param("text", "удар").param("stream", "true")
+                        .param("from", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Перфоратор", om.readTree(body.trim()).get("name").asText());
+
+        mockMvc.perform(get("/items").header(HDR, 999L).param("stream", "true"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void search_blank_returnsEmptyList() throws Exception {
         mockMvc.perform(get("/items/search").param("text", "   "))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
+
+    @Test
+    void comment_onlyAfterFinishedBooking_shownWithItem() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        long booker = createUser("Booker", "b@ex.com");
+        long stranger = createUser("Stranger", "s@ex.com");
+        long item = createItem(owner, new ItemDto(null, "Дрель", "ударная", true, null, null));
+        long other = createItem(owner, new ItemDto(null, "Пила", "цепная", true, null, null));
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        long finished = book(booker, item, now.plusMinutes(1), now.plusMinutes(2));
+        book(booker, other, now.plusMinutes(1), now.plusMinutes(2));
+        mockMvc.perform(patch("/bookings/{id}", finished).header(HDR, owner).param("approved", "true"))
+                .andExpect(status().isOk());
+        String comment = "{\"text\":\"Отличная дрель\"}";
+
+        // аренда ещё идёт
+        mockMvc.perform(post("/items/{id}/comment", item).header(HDR, booker)
+                        .contentType(MediaType.APPLICATION_JSON).content(comment))
+                .andExpect(status().isBadRequest());
+        clock.advance(Duration.ofMinutes(3));
+
+        mockMvc.perform(post("/items/{id}/comment", item).header(HDR, booker)
+                        .contentType(MediaType.APPLICATION_JSON).content(comment))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.authorName", is("Booker")))
+                .andExpect(jsonPath("$.created", notNullValue()));
+        // бронь второй вещи не подтверждена
+        mockMvc.perform(post("/items/{id}/comment", other).header(HDR, booker)
+                        .contentType(MediaType.APPLICATION_JSON).content(comment))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/items/{id}/comment", item).header(HDR, stranger)
+                        .contentType(MediaType.APPLICATION_JSON).content(comment))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/items/{id}/comment", item).header(HDR, booker)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"text\":\" \"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/items/{id}/comment", 999L).header(HDR, booker)
+                        .contentType(MediaType.APPLICATION_JSON).content(comment))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/items/{id}", item).header(HDR, stranger))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments[*].text", contains("Отличная дрель")));
+        mockMvc.perform(get("/items").header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].comments[*].authorName", contains("Booker")))
+                .andExpect(jsonPath("$[1].comments", hasSize(0)));
+    }
 }
@@ -0,0 +1,265 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Потоковые выборки в БД: H2 в памяти всё равно отдаёт результат целиком, поэтому проверяется то, по чему
+// драйвер PostgreSQL решает читать курсором порциями: запрос выполнен с fetchSize внутри транзакции
+// (autoCommit выключен) только на чтение, а после закрытия потока транзакция завершена и соединение
+// вернулось в пул в исходном состоянии
+@SpringBootTest(properties = "shareit.jdbc.fetch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "jdbc"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ItemStreamingJdbcTest {
+
+    private static final String HDR = "X-Sharer-User-Id";
+
+    // запросы SELECT, выполненные через пул, и состояние их соединения в момент выполнения
+    record Query(String sql, int fetchSize, boolean autoCommit, boolean readOnly) {
+    }
+
+    // соединения, возвращённые в пул после отката транзакции, и их состояние в момент возврата
+    record Released(boolean autoCommit, boolean readOnly) {
+    }
+
+    static final List<Query> QUERIES = new CopyOnWriteArrayList<>();
+    static final List<Released> ROLLED_BACK = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class RecordingDataSource {
+
+        @Bean
+        static BeanPostProcessor recordQueries() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String name) {
+                    return bean instanceof DataSource ds ? proxy(DataSource.class, ds, dataSourceHandler(ds)) : bean;
+                }
+            };
+        }
+
+        private static InvocationHandler dataSourceHandler(DataSource ds) {
+            return (p, m, args) -> {
+                Object result = invoke(ds, m, args);
+                return result instanceof Connection con ? proxy(Connection.class, con, connectionHandler(con)) : result;
+            };
+        }
+
+        // H2 принимает setReadOnly, но isReadOnly у него отвечает за всю базу, поэтому флаг запоминается здесь
+        private static InvocationHandler connectionHandler(Connection con) {
+            AtomicBoolean readOnly = new AtomicBoolean();
+            AtomicBoolean rolledBack = new AtomicBoolean();
+            return (p, m, args) -> {
+                switch (m.getName()) {
+                    case "setReadOnly" -> readOnly.set((Boolean) args[0]);
+                    case "isReadOnly" -> {
+                        return readOnly.get();
+                    }
+                    case "rollback" -> rolledBack.set(args == null || args.length == 0);
+                    case "close" -> {
+                        if (rolledBack.get()) {
+                            ROLLED_BACK.add(new Released(con.getAutoCommit(), readOnly.get()));
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                Object result = invoke(con, m, args);
+                if (result instanceof PreparedStatement ps && args != null && args[0] instanceof String sql
+                        && sql.startsWith("SELECT")) {
+                    return proxy(PreparedStatement.class, ps, (sp, sm, sargs) -> {
+                        if (sm.getName().equals("executeQuery")) {
+                            QUERIES.add(new Query(sql, ps.getFetchSize(), con.getAutoCommit(), readOnly.get()));
+                        }
+                        // JdbcTemplate освобождает соединение, полученное от запроса, — это должна быть обёртка
+                        if (sm.getName().equals("getConnection")) {
+                            return p;
+                        }
+                        return invoke(ps, sm, sargs);
+                    });
+                }
+                return result;
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method m, Object[] args) throws Throwable {
+            try {
+                return m.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper om;
+
+    @Test
+    void ownerItemsStream_readsByCursorInReadOnlyTransaction() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        for (int i = 0; i < 5; i++) {
+            createItem(owner, new ItemDto(null, "Дрель " + i, "ударная", true, null, null));
+        }
+        QUERIES.clear();
+        ROLLED_BACK.clear();
+
+        String[] lines = streamed("/items", owner);
+        assertEquals(5, lines.length);
+        assertEquals("Дрель 4", om.readTree(lines[4]).get("name").asText());
+
+        Query query = single("FROM items WHERE owner_id");
+        assertEquals(2, query.fetchSize());
+        assertFalse(query.autoCommit(), "поток читался в режиме автокоммита, курсор не используется");
+        assertTrue(query.readOnly());
+        assertEquals(1, ROLLED_BACK.size(), "транзакция потока не завершена");
+        assertConnectionsRestored();
+
+        // обычная выдача списком по-прежнему в автокоммите и без курсора
+        mockMvc.perform(get("/items").header(HDR, owner)).andExpect(status().isOk());
+        assertTrue(QUERIES.stream().filter(q -> q.sql().contains("FROM items WHERE owner_id")).skip(1)
+                .allMatch(Query::autoCommit));
+    }
+
+    @Test
+    void searchAndUsersStreams_readByCursor() throws Exception {
+        long owner = createUser("Owner", "o@ex.com");
+        createUser("Second", "s@ex.com");
+        createItem(owner, new ItemDto(null, "Дрель", "ударная", true, null, null));
+        createItem(owner, new ItemDto(null, "Перфоратор", "ударный режим", true, null, null));
+        createItem(owner, new ItemDto(null, "Отвёртка", "крестовая", true, null, null));
+        QUERIES.clear();
+        ROLLED_BACK.clear();
+
+        assertEquals(2, streamed("/items/search?text=удар", null).length);
+        assertEquals(2, streamed("/users", null).length);
+
+        for (Query query : List.of(single("FROM items WHERE available"), single("FROM users WHERE id >"))) {
+            assertEquals(2, query.fetchSize());
+            assertFalse(query.autoCommit());
+            assertTrue(query.readOnly());
+        }
+        assertEquals(2, ROLLED_BACK.size());
+        assertConnectionsRestored();
+    }
+
+    // id запросов выдаёт последовательность таблицы requests, поэтому после перезапуска над той же базой
+    // новый запрос не получает id старого вместе с его ответами
+    @Test
+    void restart_keepsItemRequests_soNewRequestsDoNotInheritOldAnswers() {
+        String[] args = {"--spring.profiles.active=test,jdbc",
+                "--spring.datasource.url=jdbc:h2:mem:restart-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1"};
+        try (ConfigurableApplicationContext ctx = start(args)) {
+            User owner = ctx.getBean(UserService.class).create(new UserDto(null, "Owner", "o@ex.com"));
+            User requester = ctx.getBean(UserService.class).create(new UserDto(null, "Req", "r@ex.com"));
+            ItemRequestDto request = ctx.getBean(ItemRequestService.class)
+                    .create(requester.getId(), new ItemRequestDto(null, "Нужна дрель", null, null));
+            ctx.getBean(ItemService.class)
+                    .create(owner.getId(), new ItemDto(null, "Дрель", "ударная", true, null, request.getId()));
+        }
+
+        try (ConfigurableApplicationContext ctx = start(args)) {
+            ItemRequestService requests = ctx.getBean(ItemRequestService.class);
+            assertEquals(List.of("Дрель"), requests.getById(1L, 1L).getItems().stream().map(ItemDto::getName).toList());
+            assertEquals(1, requests.getOthers(1L, PageParams.of(null, 0, 10)).size());
+
+            ItemRequestDto fresh = requests.create(1L, new ItemRequestDto(null, "Нужна пила", null, null));
+            assertEquals(2L, fresh.getId());
+            assertTrue(requests.getById(1L, 2L).getItems().isEmpty());
+            assertEquals(List.of(2L), requests.getOwn(1L).stream().map(ItemRequestDto::getId).toList());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args);
+    }
+
+    private Query single(String fragment) {
+        List<Query> found = QUERIES.stream().filter(q -> q.sql().contains(fragment)).toList();
+        assertEquals(1, found.size(), "запросы: " + QUERIES);
+        return found.get(0);
+    }
+
+    // соединения вернулись в пул снова в автокоммите и доступными на запись
+    private void assertConnectionsRestored() {
+        assertTrue(ROLLED_BACK.stream().allMatch(r -> r.autoCommit() && !r.readOnly()), ROLLED_BACK::toString);
+    }
+
+    private String[] streamed(String uri, Long userId) throws Exception {
+        var builder = get(uri).param("stream", "true");
+        if (userId != null) {
+            builder.header(HDR, userId);
+        }
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()
+                .split("\n");
+    }
+
+    private long createUser(String name, String email) throws Exception {
+        String json = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, name, email))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
+    private void createItem(long ownerId, ItemDto dto) throws Exception {
+        mockMvc.perform(post("/items")
+                        .header(HDR, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+    }
+}
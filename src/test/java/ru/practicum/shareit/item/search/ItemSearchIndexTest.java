@@ -0,0 +1,117 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.InMemoryItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// put/remove приходят после записи в хранилище и могут опоздать: выдача должна соответствовать новейшему снимку
+class ItemSearchIndexTest {
+
+    private final AtomicInteger scans = new AtomicInteger();
+    private final InMemoryItemRepository repo = new InMemoryItemRepository() {
+        @Override
+        public Stream<Item> streamAvailableByText(String text, PageParams page) {
+            scans.incrementAndGet();
+            return super.streamAvailableByText(text, page);
+        }
+    };
+    private final ItemSearchIndex index = new ItemSearchIndex(repo,
+            new SearchResultCache(new SearchCacheProperties(100, 1_000), new SimpleMeterRegistry()));
+
+    @BeforeEach
+    void storeDrill() {
+        repo.save(drill(1, true));
+    }
+
+    @Test
+    void lateUnavailableSnapshot_doesNotEvictNewerItem() {
+        index.put(drill(2, true));
+        index.put(drill(1, false));
+
+        assertEquals(List.of(1L), found());
+    }
+
+    @Test
+    void lateAvailableSnapshot_doesNotReviveRemovedItem() {
+        repo.update(drill(1, false));
+        index.put(drill(1, true));
+        index.put(drill(3, false));
+        index.put(drill(2, true));
+        assertEquals(List.of(), found());
+
+        repo.update(drill(2, true));
+        index.put(drill(4, true));
+        assertEquals(List.of(1L), found());
+    }
+
+    @Test
+    void deletedItem_staysOutOfIndex_withoutTombstone() {
+        index.put(drill(1, true));
+        index.put(drill(2, false));
+        assertEquals(1, index.tombstones());
+
+        repo.deleteAll(List.of(1L));
+        index.remove(List.of(1L));
+        index.put(drill(3, true));
+        index.put(drill(4, false));
+
+        assertEquals(List.of(), found());
+        assertEquals(0, index.tombstones());
+    }
+
+    // продолжений у префикса больше MAX_PREFIX_TERMS: частое не должно вытесняться редкими, идущими раньше по алфавиту
+    @Test
+    void shortPrefix_keepsMostFrequentContinuations() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            items.add(item(String.format("Пила%04d", i), "цепная"));
+        }
+        for (int i = 0; i < 3; i++) {
+            items.add(item("Пилка", "ручная"));
+        }
+        List<Long> frequent = repo.saveAll(items).subList(64, 67).stream().map(Item::getId).toList();
+
+        assertEquals(frequent, index.search("пил ручн", 0, 10, id -> id));
+    }
+
+    // запрос без size: ранжированная выдача полная, и хвост из совпадений подстроки берётся из кеша вместе с ней
+    @Test
+    void repeatedDefaultSizeSearch_doesNotScanRepository() {
+        long substringOnly = repo.save(item("Минидрель", "аккумуляторная")).getId();
+        List<Long> expected = List.of(1L, substringOnly);
+
+        assertEquals(expected, index.search("дрель", 0, Integer.MAX_VALUE, id -> id));
+        assertEquals(1, scans.get());
+        assertEquals(expected, index.search("Дрель", 0, Integer.MAX_VALUE, id -> id));
+        assertEquals(1, scans.get());
+    }
+
+    private List<Long> found() {
+        return index.search("дрель", 0, 10, id -> id);
+    }
+
+    private static Item item(String name, String description) {
+        return Item.builder().name(name).description(description).available(true).ownerId(1L).build();
+    }
+
+    private static Item drill(long version, boolean available) {
+        return Item.builder()
+                .id(1L)
+                .name("Дрель")
+                .description("Ударная")
+                .available(available)
+                .ownerId(1L)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,281 @@
+package ru.practicum.shareit.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.PageParams;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.StorageUnavailableException;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.InMemoryItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.InMemoryUserRepository;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Приложение поднимается несколько раз подряд над одним каталогом журнала.
+// Закрытие контекста не снимает снимок, поэтому для хранилищ оно равносильно остановке процесса:
+// на диске остаётся только то, что было подтверждено fsync до ответа на каждое изменение
+class JournalRecoveryTest {
+
+    @Test
+    void restart_replaysJournal_andIgnoresTornTail(@TempDir Path dir) throws Exception {
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            UserService users = ctx.getBean(UserService.class);
+            ItemService items = ctx.getBean(ItemService.class);
+            User owner = users.create(new UserDto(null, "Owner", "owner@ex.com"));
+            User gone = users.create(new UserDto(null, "Gone", "gone@ex.com"));
+            items.create(owner.getId(), new ItemDto(null, "Дрель", "ударная", true, null, null));
+            items.createBatch(owner.getId(), List.of(
+                    new ItemDto(null, "Пила", "цепная", true, null, null),
+                    new ItemDto(null, "Лестница", "алюминиевая", false, null, null)));
+            items.update(owner.getId(), 1L, new ItemDto(null, null, "аккумуляторная", null, null, null));
+            users.delete(gone.getId());
+        }
+
+        // процесс упал посреди записи следующего кадра
+        Path lastSegment = segments(dir).get(segments(dir).size() - 1);
+        Files.write(lastSegment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            UserService users = ctx.getBean(UserService.class);
+            ItemService items = ctx.getBean(ItemService.class);
+
+            assertEquals("Owner", users.getById(1L).getName());
+            assertThrows(NotFoundException.class, () -> users.getById(2L));
+            ItemDto drill = items.getById(1L, 1L);
+            assertEquals("Дрель", drill.getName());
+            assertEquals("аккумуляторная", drill.getDescription());
+            assertEquals(3, items.getByOwner(1L, PageParams.of(null, 0, 10)).size());
+            assertEquals(List.of("Пила"), items.search("цеп", PageParams.of(null, 0, 10)).stream()
+                    .map(Item::getName).toList());
+
+            // счётчики id продолжаются, индекс email восстановлен вместе с удалением
+            assertThrows(ConflictException.class, () -> users.create(new UserDto(null, "Copy", "OWNER@ex.com")));
+            assertEquals(3L, users.create(new UserDto(null, "Again", "gone@ex.com")).getId());
+            assertEquals(4L, items.create(1L, new ItemDto(null, "Топор", "колун", true, null, null)).getId());
+        }
+    }
+
+    @Test
+    void checkpoint_writesSnapshot_andDropsCoveredSegments(@TempDir Path dir) throws Exception {
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            UserService users = ctx.getBean(UserService.class);
+            ItemService items = ctx.getBean(ItemService.class);
+            users.create(new UserDto(null, "Owner", "owner@ex.com"));
+            items.create(1L, new ItemDto(null, "Дрель", "ударная", true, null, null));
+
+            ctx.getBean(JournalCheckpointer.class).checkpoint();
+
+            // изменения после снимка остаются только в журнале
+            items.update(1L, 1L, new ItemDto(null, "Перфоратор", null, null, null, null));
+            users.update(1L, new UserDto(null, "Renamed", null));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.filter(p -> p.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        assertEquals(1, segments(dir).size());
+
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            assertEquals("Renamed", ctx.getBean(UserService.class).getById(1L).getName());
+            ItemDto item = ctx.getBean(ItemService.class).getById(null, 1L);
+            assertEquals("Перфоратор", item.getName());
+            assertEquals("ударная", item.getDescription());
+            assertEquals(2L, ctx.getBean(ItemService.class)
+                    .create(1L, new ItemDto(null, "Пила", "цепная", true, null, null)).getId());
+        }
+    }
+
+    @Test
+    void restart_keepsItemRequests_soNewRequestsDoNotInheritOldAnswers(@TempDir Path dir) throws Exception {
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            User owner = ctx.getBean(UserService.class).create(new UserDto(null, "Owner", "owner@ex.com"));
+            User requester = ctx.getBean(UserService.class).create(new UserDto(null, "Req", "req@ex.com"));
+            ItemRequestDto request = ctx.getBean(ItemRequestService.class)
+                    .create(requester.getId(), new ItemRequestDto(null, "Нужна дрель", null, null));
+            ctx.getBean(ItemService.class)
+                    .create(owner.getId(), new ItemDto(null, "Дрель", "ударная", true, null, request.getId()));
+        }
+
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            ItemRequestService requests = ctx.getBean(ItemRequestService.class);
+            ItemRequestDto old = requests.getById(1L, 1L);
+            assertEquals("Нужна дрель", old.getDescription());
+            assertNotNull(old.getCreated());
+            assertEquals(List.of("Дрель"), old.getItems().stream().map(ItemDto::getName).toList());
+
+            // счётчик id продолжается: ответ на старый запрос не приписывается новому
+            ItemRequestDto fresh = requests.create(1L, new ItemRequestDto(null, "Нужна пила", null, null));
+            assertEquals(2L, fresh.getId());
+            assertTrue(requests.getById(1L, 2L).getItems().isEmpty());
+        }
+    }
+
+    @Test
+    void restart_keepsBookingsAndComments(@TempDir Path dir) throws Exception {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            User owner = ctx.getBean(UserService.class).create(new UserDto(null, "Owner", "owner@ex.com"));
+            User booker = ctx.getBean(UserService.class).create(new UserDto(null, "Booker", "booker@ex.com"));
+            Item drill = ctx.getBean(ItemService.class)
+                    .create(owner.getId(), new ItemDto(null, "Дрель", "ударная", true, null, null));
+            BookingService bookings = ctx.getBean(BookingService.class);
+            BookingDto booking = bookings.create(booker.getId(),
+                    new BookingCreateDto(drill.getId(), start, start.plusHours(2)));
+            bookings.approve(owner.getId(), booking.getId(), true);
+            // отзыв сохраняется в хранилище напрямую: завершённой аренды здесь нет
+            ctx.getBean(CommentRepository.class).save(Comment.builder().text("Отличная дрель").itemId(drill.getId())
+                    .authorId(booker.getId()).authorName("Booker").created(start).build());
+        }
+
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            BookingService bookings = ctx.getBean(BookingService.class);
+            assertEquals(BookingStatus.APPROVED, bookings.getById(2L, 1L).getStatus());
+            assertEquals(List.of(1L), bookings.getByOwner(1L, BookingState.FUTURE).stream()
+                    .map(BookingDto::getId).toList());
+            ItemDto drill = ctx.getBean(ItemService.class).getById(1L, 1L);
+            assertEquals(1L, drill.getNextBooking().getId());
+            assertEquals(List.of("Отличная дрель"), drill.getComments().stream().map(CommentDto::getText).toList());
+
+            // индекс броней вещи восстановлен, счётчики id продолжаются
+            assertThrows(ConflictException.class, () -> bookings.create(2L,
+                    new BookingCreateDto(1L, start.plusHours(1), start.plusHours(3))));
+            assertEquals(2L, bookings.create(2L, new BookingCreateDto(1L, start.plusHours(2), start.plusHours(3))).getId());
+            assertEquals(2L, ctx.getBean(CommentRepository.class).save(Comment.builder().text("Ещё").itemId(1L)
+                    .authorId(2L).authorName("Booker").created(start).build()).getId());
+        }
+    }
+
+    @Test
+    void restart_resumesInterruptedUserCleanup(@TempDir Path dir) throws Exception {
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            User owner = ctx.getBean(UserService.class).create(new UserDto(null, "Owner", "owner@ex.com"));
+            User other = ctx.getBean(UserService.class).create(new UserDto(null, "Other", "other@ex.com"));
+            ItemService items = ctx.getBean(ItemService.class);
+            items.create(owner.getId(), new ItemDto(null, "Дрель", "ударная", true, null, null));
+            items.create(owner.getId(), new ItemDto(null, "Пила", "цепная", true, null, null));
+            items.create(other.getId(), new ItemDto(null, "Лестница", "алюминиевая", true, null, null));
+            // процесс упал сразу после удаления пользователя: до его вещей очистка не дошла
+            ctx.getBean(UserRepository.class).deleteById(owner.getId());
+        }
+
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            ItemService items = ctx.getBean(ItemService.class);
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+                assertThrows(NotFoundException.class, () -> items.getById(null, 1L));
+                assertThrows(NotFoundException.class, () -> items.getById(null, 2L));
+            });
+            assertEquals(List.of(), items.search("дрель", PageParams.of(null, 0, 10)));
+            assertEquals("Лестница", items.getById(null, 3L).getName());
+        }
+    }
+
+    @Test
+    void writeFailure_rejectsLaterChanges_beforeTouchingMemory(@TempDir Path dir) throws Exception {
+        FileJournal journal = new FileJournal(dir);
+        InMemoryUserRepository users = new InMemoryUserRepository(journal);
+        users.save(User.builder().name("Owner").email("owner@ex.com").build());
+
+        // канал сегмента закрыт, поэтому следующая запись на диск падает с ClosedChannelException
+        journal.close();
+        assertThrows(StorageUnavailableException.class,
+                () -> users.save(User.builder().name("Lost").email("lost@ex.com").build()));
+
+        // ни упавшее изменение, ни последующие не попадают в память
+        assertThrows(StorageUnavailableException.class,
+                () -> users.save(User.builder().name("Late").email("late@ex.com").build()));
+        assertThrows(StorageUnavailableException.class, () -> users.deleteById(1L));
+        assertEquals(1, users.count());
+        assertTrue(users.findById(1L).isPresent());
+        assertFalse(users.existsByEmail("lost@ex.com", null));
+        assertFalse(users.existsByEmail("late@ex.com", null));
+
+        try (ConfigurableApplicationContext ctx = start(dir)) {
+            UserService service = ctx.getBean(UserService.class);
+            assertEquals("Owner", service.getById(1L).getName());
+            assertThrows(NotFoundException.class, () -> service.getById(2L));
+        }
+    }
+
+    @Test
+    void fsyncFailure_leavesFailedUpdateInvisible(@TempDir Path dir) throws Exception {
+        AtomicBoolean failSync = new AtomicBoolean();
+        FileJournal journal = new FileJournal(dir) {
+            @Override
+            void force(FileChannel target) throws IOException {
+                if (failSync.get()) {
+                    throw new IOException("fsync failed");
+                }
+                super.force(target);
+            }
+        };
+        InMemoryUserRepository users = new InMemoryUserRepository(journal);
+        InMemoryItemRepository items = new InMemoryItemRepository(journal);
+        User owner = users.save(User.builder().name("Owner").email("owner@ex.com").build());
+        Item drill = items.save(Item.builder().name("Дрель").description("ударная").available(true)
+                .ownerId(owner.getId()).build());
+
+        failSync.set(true);
+        assertThrows(StorageUnavailableException.class,
+                () -> users.update(owner.toBuilder().name("Renamed").email("renamed@ex.com").build()));
+        assertThrows(StorageUnavailableException.class,
+                () -> items.update(drill.toBuilder().name("Перфоратор").build()));
+
+        // кадр записан, но не подтверждён fsync: изменения не видны, email не занят
+        assertEquals(owner, users.findById(owner.getId()).orElseThrow());
+        assertTrue(users.existsByEmail("owner@ex.com", null));
+        assertFalse(users.existsByEmail("renamed@ex.com", null));
+        assertEquals(drill, items.findById(drill.getId()).orElseThrow());
+        assertEquals(List.of(drill), items.searchAvailableByText("дрель", PageParams.of(null, 0, 10)));
+        assertTrue(items.searchAvailableByText("перфоратор", PageParams.of(null, 0, 10)).isEmpty());
+    }
+
+    private static ConfigurableApplicationContext start(Path dir) {
+        return new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--shareit.journal.enabled=true", "--shareit.journal.dir=" + dir);
+    }
+
+    private static List<Path> segments(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("wal-"))
+                    .filter(p -> p.toFile().length() > 0)
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MetricsTest {
+
+    private static final String HDR = "X-Sharer-User-Id";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper om;
+
+    @Test
+    void serviceAndStorageMetrics_exposed() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, "Owner", "o@ex.com"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/items")
+                        .header(HDR, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, "Дрель", "ударная", true, null, null))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/items/search").param("text", "дрель"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/items/{id}", 42L))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/metrics/shareit.service")
+                        .param("tag", "area:items")
+                        .param("tag", "method:create"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value", contains(1.0)));
+        mockMvc.perform(get("/actuator/metrics/shareit.items.search.results"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'TOTAL')].value", contains(1.0)));
+        mockMvc.perform(get("/actuator/metrics/shareit.storage.size").param("tag", "entity:items"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", is(1.0)));
+        mockMvc.perform(get("/actuator/metrics/shareit.errors").param("tag", "type:not_found"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", is(1.0)));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("shareit_service_seconds_bucket")))
+                .andExpect(content().string(containsString("shareit_items_search_results_bucket")));
+    }
+
+    @Test
+    void searchCache_hitsUntilCatalogChanges() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, "Owner", "o@ex.com"))))
+                .andExpect(status().isOk());
+        createItem("Дрель", "ударная");
+
+        // запросы с одинаковыми нормализованными словами и страницами в пределах depth — одна запись
+        mockMvc.perform(get("/items/search").param("text", "Дрель"))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/items/search").param("text", "  дрель ").param("size", "10"))
+                .andExpect(jsonPath("$", hasSize(1)));
+        createItem("Дрель-шуруповёрт", "аккумуляторная");
+        mockMvc.perform(get("/items/search").param("text", "ДРЕЛЬ"))
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        expectCount("shareit.items.search.cache", "result:miss", 1.0);
+        expectCount("shareit.items.search.cache", "result:hit", 1.0);
+        expectCount("shareit.items.search.cache", "result:stale", 1.0);
+        mockMvc.perform(get("/actuator/metrics/shareit.items.search.cache.hit.ratio"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", closeTo(1.0 / 3, 1e-9)));
+    }
+
+    private void createItem(String name, String description) throws Exception {
+        mockMvc.perform(post("/items")
+                        .header(HDR, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, name, description, true, null, null))))
+                .andExpect(status().isOk());
+    }
+
+    private void expectCount(String metric, String tag, double value) throws Exception {
+        mockMvc.perform(get("/actuator/metrics/" + metric).param("tag", tag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", is(value)));
+    }
+}
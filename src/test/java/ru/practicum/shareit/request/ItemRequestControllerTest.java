@@ -0,0 +1,124 @@
+package ru.practicum.shareit.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ItemRequestControllerTest {
+
+    private static final String HDR = "X-Sharer-User-Id";
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper om;
+
+    private long createUser(String name, String email) throws Exception {
+        String json = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, name, email))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
+    private long createRequest(long userId, String description) throws Exception {
+        String json = mockMvc.perform(post("/requests")
+                        .header(HDR, userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(ItemRequestDto.builder().description(description).build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", notNullValue()))
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
+    private void answer(long ownerId, String name, Long requestId) throws Exception {
+        mockMvc.perform(post("/items")
+                        .header(HDR, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, name, "по запросу", true, null, requestId))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ownRequests_withAnswers_newestFirst() throws Exception {
+        long requester = createUser("Requester", "r@ex.com");
+        long owner = createUser("Owner", "o@ex.com");
+        long drill = createRequest(requester, "Нужна дрель");
+        long saw = createRequest(requester, "Нужна пила");
+        answer(owner, "Дрель", drill);
+        answer(owner, "Ещё дрель", drill);
+        answer(owner, "Не по запросу", null);
+
+        mockMvc.perform(get("/requests").header(HDR, requester))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains((int) saw, (int) drill)))
+                .andExpect(jsonPath("$[0].items", hasSize(0)))
+                .andExpect(jsonPath("$[1].items[*].name", contains("Дрель", "Ещё дрель")))
+                .andExpect(jsonPath("$[1].items[0].ownerId", is((int) owner)));
+        mockMvc.perform(get("/requests/{id}", drill).header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description", is("Нужна дрель")))
+                .andExpect(jsonPath("$.items", hasSize(2)));
+        mockMvc.perform(get("/requests").header(HDR, owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void othersRequests_pagedNewestFirst() throws Exception {
+        long a = createUser("A", "a@ex.com");
+        long b = createUser("B", "b@ex.com");
+        for (int i = 1; i <= 5; i++) {
+            createRequest(i % 2 == 0 ? a : b, "Запрос " + i);
+        }
+
+        mockMvc.perform(get("/requests/all").header(HDR, a))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(5, 3, 1)));
+        mockMvc.perform(get("/requests/all").header(HDR, b).param("from", "0").param("size", "1"))
+                .andExpect(jsonPath("$[*].id", contains(4)));
+        mockMvc.perform(get("/requests/all").header(HDR, a).param("afterId", "5").param("size", "1"))
+                .andExpect(jsonPath("$[*].id", contains(3)));
+        mockMvc.perform(get("/requests/all").header(HDR, a).param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void invalidRequests() throws Exception {
+        long user = createUser("A", "a@ex.com");
+
+        mockMvc.perform(post("/requests")
+                        .header(HDR, user)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\" \"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/requests")
+                        .header(HDR, 999L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Нужна дрель\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/requests/{id}", 42L).header(HDR, user))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/items")
+                        .header(HDR, user)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, "Дрель", "ударная", true, null, 42L))))
+                .andExpect(status().isNotFound());
+    }
+}
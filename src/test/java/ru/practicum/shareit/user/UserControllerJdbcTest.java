@@ -0,0 +1,8 @@
+package ru.practicum.shareit.user;
+
+import org.springframework.test.context.ActiveProfiles;
+
+// те же сценарии, что и для in-memory хранилища, но поверх БД (H2 в режиме PostgreSQL)
+@ActiveProfiles({"test", "jdbc"})
+class UserControllerJdbcTest extends UserControllerTest {
+}
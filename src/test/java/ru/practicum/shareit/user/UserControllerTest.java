@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -8,9 +9,21 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -21,6 +34,7 @@ class UserControllerTest {
 
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper om;
+    @Autowired private MeterRegistry registry;
 
     @Test
     void createUser_ok() throws Exception {
@@ -63,6 +77,74 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.error", containsString("Email уже используется")));
     }
 
+    @Test
+    void createUser_duplicateEmail_ignoresCase() throws Exception {
+        createUser(new UserDto(null, "UserA", "Case@Example.com"));
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, "UserB", "case@example.COM"))))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createUser_concurrentSameEmail_onlyOneWins() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String body = om.writeValueAsString(new UserDto(null, "User" + i, "race@example.com"));
+            results.add(pool.submit(() -> {
+                start.await();
+                return mockMvc.perform(post("/users")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        start.countDown();
+
+        int ok = 0;
+        int conflict = 0;
+        for (Future<Integer> f : results) {
+            int code = f.get(10, TimeUnit.SECONDS);
+            if (code == 200) {
+                ok++;
+            } else if (code == 409) {
+                conflict++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, ok);
+        assertEquals(threads - 1, conflict);
+    }
+
+    @Test
+    void patchUser_emailChange_releasesOldEmail() throws Exception {
+        createUser(new UserDto(null, "UserA", "old@example.com"));
+        createUser(new UserDto(null, "UserB", "other@example.com"));
+
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, null, "OTHER@example.com"))))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/users/{id}", 1L))
+                .andExpect(jsonPath("$.email", is("old@example.com")));
+
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, null, "new@example.com"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new UserDto(null, null, "New@Example.com"))))
+                .andExpect(status().isOk());
+
+        createUser(new UserDto(null, "UserC", "old@example.com"));
+    }
+
     @Test
     void patchUser_partialUpdate_ok() throws Exception {
         UserDto dto = new UserDto(null, "UserX", "userx@example.com");
@@ -80,6 +162,110 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email", is("userx@example.com")));
     }
 
+    @Test
+    void getAll_paged_byOffsetAndCursor() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            createUser(new UserDto(null, "User" + i, "user" + i + "@example.com"));
+        }
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(1, 2, 3, 4, 5)));
+        mockMvc.perform(get("/users").param("from", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(2, 3)));
+        mockMvc.perform(get("/users").param("afterId", "3").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(4, 5)));
+
+        mockMvc.perform(delete("/users/{id}", 4L)).andExpect(status().isOk());
+        mockMvc.perform(get("/users").param("afterId", "2").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(3, 5)));
+    }
+
+    @Test
+    void getAll_streamedAsNdjson() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            createUser(new UserDto(null, "User" + i, "user" + i + "@example.com"));
+        }
+
+        MvcResult started = mockMvc.perform(get("/users").param("stream", "true").param("from", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("{\"id\":2,\"name\":\"User2\",\"email\":\"user2@example.com\"}\n"
+                + "{\"id\":3,\"name\":\"User3\",\"email\":\"user3@example.com\"}\n", body);
+    }
+
+    @Test
+    void getAll_invalidPage_returns400() throws Exception {
+        mockMvc.perform(get("/users").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users").param("from", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createBatch_perElementResults() throws Exception {
+        createUser(new UserDto(null, "Existing", "taken@example.com"));
+        List<UserDto> batch = List.of(
+                new UserDto(null, "A", "a@example.com"),
+                new UserDto(null, "B", "bad-email"),
+                new UserDto(null, "C", "TAKEN@example.com"),
+                new UserDto(null, "D", "A@example.com"),
+                new UserDto(null, "E", "e@example.com"));
+
+        mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].index", contains(0, 1, 2, 3, 4)))
+                .andExpect(jsonPath("$[*].status", contains(200, 400, 409, 409, 200)))
+                .andExpect(jsonPath("$[0].value.email", is("a@example.com")))
+                .andExpect(jsonPath("$[1].error", containsString("Некорректный email")))
+                .andExpect(jsonPath("$[4].value.name", is("E")));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Existing", "A", "E")));
+    }
+
+    @Test
+    void updateBatch_perElementResults_appliedInOrder() throws Exception {
+        long a = createUser(new UserDto(null, "A", "a@example.com"));
+        long b = createUser(new UserDto(null, "B", "b@example.com"));
+        long c = createUser(new UserDto(null, "C", "c@example.com"));
+        long d = createUser(new UserDto(null, "D", "d@example.com"));
+        List<UserDto> batch = List.of(
+                new UserDto(a, "Anna", "new@example.com"),
+                new UserDto(b, null, "NEW@example.com"),
+                new UserDto(c, null, "bad-email"),
+                new UserDto(999L, "Ghost", null),
+                new UserDto(null, "Без id", null),
+                new UserDto(a, "Again", null),
+                new UserDto(d, " Dina ", null));
+
+        mockMvc.perform(patch("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].index", contains(0, 1, 2, 3, 4, 5, 6)))
+                .andExpect(jsonPath("$[*].status", contains(200, 409, 400, 404, 400, 400, 200)))
+                .andExpect(jsonPath("$[0].value.email", is("new@example.com")))
+                .andExpect(jsonPath("$[1].error", containsString("Email уже используется")))
+                .andExpect(jsonPath("$[6].value.name", is("Dina")));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Anna", "B", "C", "Dina")))
+                .andExpect(jsonPath("$[*].email", contains("new@example.com", "b@example.com", "c@example.com", "d@example.com")));
+    }
+
     @Test
     void getUser_notFound() throws Exception {
         mockMvc.perform(get("/users/{id}", 42L))
@@ -87,6 +273,21 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.error", containsString("Пользователь не найден")));
     }
 
+    @Test
+    void zeroId_treatedAsMissing() throws Exception {
+        mockMvc.perform(get("/users/{id}", 0L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", containsString("Пользователь не найден")));
+
+        mockMvc.perform(patch("/users/{id}", 0L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Zero\"}"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(delete("/users/{id}", 0L))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void deleteUser_ok() throws Exception {
         UserDto dto = new UserDto(null, "UserDel", "userdel@example.com");
@@ -99,5 +300,115 @@ class UserControllerTest {
 
         mockMvc.perform(get("/users/{id}", 1L))
                 .andExpect(status().isNotFound());
+
+        createUser(new UserDto(null, "UserNew", "userdel@example.com"));
+    }
+
+    @Test
+    void deleteUser_missing_schedulesNoCleanup() throws Exception {
+        mockMvc.perform(delete("/users/{id}", 42L))
+                .andExpect(status().isOk());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertEquals(0.0, registry.get("shareit.cleanup.pending").gauge().value()));
+        assertEquals(0, registry.get("shareit.cleanup.duration").timer().count());
+    }
+
+    @Test
+    void deleteUser_cleansUpItemsAndFutureBookings() throws Exception {
+        long owner = createUser(new UserDto(null, "Owner", "owner@example.com"));
+        long booker = createUser(new UserDto(null, "Booker", "booker@example.com"));
+        long drill = createItem(owner, "Дрель");
+        long saw = createItem(owner, "Пила");
+        long ladder = createItem(booker, "Лестница");
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+        String json = mockMvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", booker)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new BookingCreateDto(drill, start, start.plusHours(2)))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long booking = om.readTree(json).get("id").asLong();
+
+        mockMvc.perform(delete("/users/{id}", owner))
+                .andExpect(status().isOk());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            mockMvc.perform(get("/items/{id}", drill)).andExpect(status().isNotFound());
+            mockMvc.perform(get("/items/{id}", saw)).andExpect(status().isNotFound());
+            mockMvc.perform(get("/bookings/{id}", booking).header("X-Sharer-User-Id", booker))
+                    .andExpect(jsonPath("$.status", is("CANCELED")));
+            assertEquals(0.0, registry.get("shareit.cleanup.pending").gauge().value());
+        });
+        mockMvc.perform(get("/items/search").param("text", "дрель"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        // вещи других пользователей не затронуты
+        mockMvc.perform(get("/items/{id}", ladder)).andExpect(status().isOk());
+
+        assertEquals(2.0, registry.get("shareit.cleanup.removed").tag("entity", "items").counter().count());
+        assertEquals(1.0, registry.get("shareit.cleanup.removed").tag("entity", "bookings").counter().count());
+    }
+
+    @Test
+    void getUser_etag_conditionalGetAndIfMatch() throws Exception {
+        createUser(new UserDto(null, "UserA", "a@example.com"));
+
+        mockMvc.perform(get("/users/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(get("/users/{id}", 1L).header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""));
+        // вторая правка той же версии опоздала
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lost\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/users/{id}", 1L).header("If-None-Match", "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.name", is("Renamed")));
+
+        // список тегов: достаточно совпадения любого сильного
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .header("If-Match", "\"1\", W/\"2\", \"5\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lost\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/users/{id}", 1L)
+                        .header("If-Match", "\"1\", \"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Listed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    private long createUser(UserDto dto) throws Exception {
+        String json = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
+    }
+
+    private long createItem(long ownerId, String name) throws Exception {
+        String json = mockMvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(new ItemDto(null, name, "описание", true, null, null))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return om.readTree(json).get("id").asLong();
     }
 }